@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements an array-backed binary min-heap in the manner of the Weiss
+ * BinaryHeap. Building a heap from n items takes O(n) with Floyd's
+ * bottom-up heapify, so a consumer that only pops a few items pays for
+ * those pops alone, O(log n) each, rather than for a full sort up front.
+ * Note that all ordering is based on the compareTo method.
+ * @param <T> Generic type for the items in the heap.
+ */
+class BinaryHeap310<T extends Comparable<? super T>> implements Iterable<T>
+{
+	/**
+	 * Default capacity of an empty heap.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The heap array; the root is at index 1 and the children of i are
+	 * at 2i and 2i+1.
+	 */
+	private T[] array;
+
+	/**
+	 * Number of items in the heap.
+	 */
+	private int currentSize;
+
+	/**
+	 * Number of modifications, used by iterators to fail fast.
+	 */
+	private int modCount;
+
+	/**
+	 * Construct an empty heap.
+	 */
+	public BinaryHeap310( )
+	{
+		array = newArray( DEFAULT_CAPACITY + 1 );
+	}
+
+	/**
+	 * Construct a heap from the first n items of an array in linear time.
+	 * The array itself is not changed.
+	 * @param items the items, with no nulls among the first n.
+	 * @param n the number of items to take.
+	 */
+	public BinaryHeap310( T[] items, int n )
+	{
+		array = newArray( n + 1 );
+		System.arraycopy( items, 0, array, 1, n );
+		currentSize = n;
+		buildHeap( );
+	}
+
+	/**
+	 * Insert into the priority queue.
+	 * @param x the item to insert.
+	 */
+	public void insert( T x )
+	{
+		if( currentSize + 1 == array.length )
+			array = Arrays.copyOf( array, 2 * array.length );
+
+		//percolate up
+		int hole = ++currentSize;
+		for( ; hole > 1 && x.compareTo( array[ hole / 2 ] ) < 0; hole /= 2 )
+			array[ hole ] = array[ hole / 2 ];
+		array[ hole ] = x;
+		modCount++;
+	}
+
+	/**
+	 * Find the smallest item in the priority queue.
+	 * @return the smallest item, or null if empty.
+	 */
+	public T findMin( )
+	{
+		return isEmpty( ) ? null : array[ 1 ];
+	}
+
+	/**
+	 * Remove the smallest item from the priority queue.
+	 * @return the smallest item.
+	 * @throws IllegalArgumentException if empty.
+	 */
+	public T removeMin( )
+	{
+		if( isEmpty( ) )
+			throw new IllegalArgumentException( "Min Item Not Found" );
+
+		T minItem = array[ 1 ];
+		array[ 1 ] = array[ currentSize ];
+		array[ currentSize-- ] = null;
+		if( currentSize > 0 )
+			percolateDown( 1 );
+		modCount++;
+		return minItem;
+	}
+
+	/**
+	 * Test if the priority queue is logically empty.
+	 * @return true if empty, false otherwise.
+	 */
+	public boolean isEmpty( )
+	{
+		return currentSize == 0;
+	}
+
+	/**
+	 * Returns the number of items in the priority queue.
+	 * @return the number of items.
+	 */
+	public int size( )
+	{
+		return currentSize;
+	}
+
+	/**
+	 * Walks the items still in the heap in array order, which is not sorted,
+	 * in one linear pass.
+	 * @return an iterator over the items.
+	 */
+	public Iterator<T> iterator( )
+	{
+		return new Iterator<T>( )
+		{
+			private int index = 1;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext( )
+			{
+				return index <= currentSize;
+			}
+
+			public T next( )
+			{
+				if( modCount != expectedModCount )
+					throw new ConcurrentModificationException( );
+				if( !hasNext( ) )
+					throw new NoSuchElementException( );
+				return array[ index++ ];
+			}
+		};
+	}
+
+	/**
+	 * Lists the items in sorted order, separated by spaces. This sorts a
+	 * copy of the whole heap; displays that repaint often should use
+	 * smallest instead.
+	 * @return the items in sorted order.
+	 */
+	public String toString( )
+	{
+		T[] sorted = Arrays.copyOfRange( array, 1, currentSize + 1 );
+		Arrays.sort( sorted );
+		StringBuilder result = new StringBuilder( );
+		for( T a : sorted )
+			result.append( a ).append( ' ' );
+		return result.toString( );
+	}
+
+	/**
+	 * Lists the smallest items in sorted order, separated by spaces, with
+	 * "..." after them if more remain. Only the top of the heap is visited,
+	 * so this costs O(count^2) however many items the heap holds, which
+	 * makes it cheap enough to call on every repaint.
+	 * @param count the most items to list.
+	 * @return the smallest items in sorted order.
+	 */
+	public String smallest( int count )
+	{
+		//the next smallest item is always a child of one already listed
+		int[] candidates = new int[ count + 2 ];
+		int live = 0;
+		if( count > 0 && !isEmpty( ) )
+			candidates[ live++ ] = 1;
+
+		StringBuilder result = new StringBuilder( );
+		int listed = 0;
+		while( live > 0 && listed < count )
+		{
+			int best = 0;
+			for( int i = 1; i < live; i++ )
+				if( array[ candidates[ i ] ].compareTo( array[ candidates[ best ] ] ) < 0 )
+					best = i;
+			int hole = candidates[ best ];
+			candidates[ best ] = candidates[ --live ];
+			result.append( array[ hole ] ).append( ' ' );
+			listed++;
+			for( int child = 2 * hole; child <= 2 * hole + 1 && child <= currentSize; child++ )
+				candidates[ live++ ] = child;
+		}
+		if( listed < currentSize )
+			result.append( "..." );
+		return result.toString( );
+	}
+
+	/**
+	 * Establish heap order property from an arbitrary
+	 * arrangement of items. Runs in linear time.
+	 */
+	private void buildHeap( )
+	{
+		for( int i = currentSize / 2; i > 0; i-- )
+			percolateDown( i );
+	}
+
+	/**
+	 * Internal method to percolate down in the heap.
+	 * @param hole the index at which the percolate begins.
+	 */
+	private void percolateDown( int hole )
+	{
+		int child;
+		T tmp = array[ hole ];
+
+		for( ; hole * 2 <= currentSize; hole = child )
+		{
+			child = hole * 2;
+			if( child != currentSize && array[ child + 1 ].compareTo( array[ child ] ) < 0 )
+				child++;
+			if( array[ child ].compareTo( tmp ) < 0 )
+				array[ hole ] = array[ child ];
+			else
+				break;
+		}
+		array[ hole ] = tmp;
+	}
+
+	/**
+	 * Creates an array of the item type.
+	 * @param length the length.
+	 * @return the new array.
+	 */
+	@SuppressWarnings( "unchecked" )
+	private T[] newArray( int length )
+	{
+		return (T[]) new Comparable<?>[ length ];
+	}
+
+	/**
+	 * Main method for testing.
+	 * @param args not used.
+	 */
+	public static void main( String[] args )
+	{
+		Integer[] items = new Integer[ 100 ];
+		for( int i = 0; i < items.length; i++ )
+			items[ i ] = ( i * 37 ) % 100;
+		BinaryHeap310<Integer> heap = new BinaryHeap310<>( items, items.length );
+		boolean ordered = true;
+		for( int i = 0; i < 50; i++ )
+			ordered &= heap.removeMin( ) == i;
+		if( ordered && heap.size( ) == 50 && heap.findMin( ) == 50 && items[ 1 ] == 37 )
+		{
+			System.out.println( "Yay 1" );
+		}
+
+		heap.insert( 7 );
+		heap.insert( 99 );
+		int sum = 0;
+		for( Integer x : heap )
+			sum += x;
+		if( heap.findMin( ) == 7 && heap.size( ) == 52 && sum == 3725 + 7 + 99 &&
+			heap.toString( ).startsWith( "7 50 51 " ) && heap.smallest( 3 ).equals( "7 50 51 ..." ) &&
+			heap.smallest( 60 ).equals( heap.toString( ) ) && new BinaryHeap310<Integer>( ).smallest( 5 ).isEmpty( ) &&
+			new BinaryHeap310<Integer>( ).findMin( ) == null )
+		{
+			System.out.println( "Yay 2" );
+		}
+	}
+}
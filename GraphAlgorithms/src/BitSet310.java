@@ -0,0 +1,441 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Implements a set of graph components as a bitset over their ids: bit i is
+ * set when the component with id i is in the set. This needs one bit per
+ * possible id instead of a tree node per element, so it suits the dense ids
+ * handed out by the GraphNode and GraphEdge factories.
+ *
+ * <p>To hand elements back out, iteration asks a lookup function (usually
+ * the id registry of a graph) for the component with each id, so the set
+ * sees whatever the lookup answers at the time. For results that must
+ * outlive changes to the graph they came from, detach copies the
+ * components out once, into an array in id order sized to the set.
+ * Components are matched by id, as in GraphComp.equals.
+ *
+ * @param <E> the type of components in the set
+ */
+class BitSet310<E extends GraphComp> extends AbstractSet<E> {
+
+	/**
+	 * Number of bits in a word.
+	 */
+	private static final int WORD_BITS = 64;
+
+	/**
+	 * The bits, id i in bit (i % 64) of word (i / 64).
+	 */
+	private long[] words;
+
+	/**
+	 * Number of ids in the set.
+	 */
+	private int size;
+
+	/**
+	 * Number of modifications, used by iterators to fail fast.
+	 */
+	private int modCount;
+
+	/**
+	 * Finds the component with a given id, until the set is detached.
+	 */
+	private IntFunction<? extends E> lookup;
+
+	/**
+	 * The components in the set in ascending order of id once it is
+	 * detached, with room to spare at the end; null before.
+	 */
+	private E[] members;
+
+	/**
+	 * Constructs an empty set.
+	 *
+	 * @param lookup finds the component with a given id, for iteration
+	 * @param maxId the largest id expected, to size the set up front
+	 */
+	public BitSet310(IntFunction<? extends E> lookup, int maxId) {
+		this.lookup = lookup;
+		this.words = new long[Math.max(1, (maxId + WORD_BITS) / WORD_BITS)];
+	}
+
+	/**
+	 * Constructs an empty set that is detached from the start, so it needs
+	 * no lookup and keeps the components added to it.
+	 *
+	 * @param maxId the largest id expected, to size the set up front
+	 */
+	@SuppressWarnings("unchecked")
+	public BitSet310(int maxId) {
+		this(null, maxId);
+		this.members = (E[])new GraphComp[4];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean contains(Object o) {
+		if(!(o instanceof GraphComp))
+			return false;
+		int id = ((GraphComp)o).getId();
+		int w = id / WORD_BITS;
+		return id >= 0 && w < words.length && (words[w] & (1L << id)) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException if the id of e is negative
+	 */
+	public boolean add(E e) {
+		int id = e.getId();
+		if(id < 0)
+			throw new IllegalArgumentException("Negative id: " + id);
+		int w = id / WORD_BITS;
+		if(w >= words.length)
+			words = Arrays.copyOf(words, Math.max(w + 1, 2 * words.length));
+		long bit = 1L << id; //shifts only use the low six bits of id
+		if((words[w] & bit) != 0)
+			return false;
+		words[w] |= bit;
+		if(members != null) {
+			int k = rank(id);
+			if(size == members.length)
+				members = Arrays.copyOf(members, Math.max(4, 2 * size));
+			System.arraycopy(members, k, members, k + 1, size - k);
+			members[k] = e;
+		}
+		size++;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean remove(Object o) {
+		if(!contains(o))
+			return false;
+		clearBit(((GraphComp)o).getId());
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void clear() {
+		Arrays.fill(words, 0L);
+		if(members != null)
+			Arrays.fill(members, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Another BitSet310 is merged a word at a time, unless this set is
+	 * detached and has to take its components one by one.
+	 */
+	public boolean addAll(Collection<? extends E> c) {
+		if(!(c instanceof BitSet310) || members != null)
+			return super.addAll(c);
+		long[] other = ((BitSet310<?>)c).words;
+		if(other.length > words.length)
+			words = Arrays.copyOf(words, other.length);
+		for(int i = 0; i < other.length; i++)
+			words[i] |= other[i];
+		return recount(null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Another BitSet310 is merged a word at a time.
+	 */
+	public boolean retainAll(Collection<?> c) {
+		if(!(c instanceof BitSet310))
+			return super.retainAll(c);
+		long[] other = ((BitSet310<?>)c).words;
+		long[] before = (members == null) ? null : words.clone();
+		for(int i = 0; i < words.length; i++)
+			words[i] &= (i < other.length) ? other[i] : 0L;
+		return recount(before);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Another BitSet310 is merged a word at a time.
+	 */
+	public boolean removeAll(Collection<?> c) {
+		if(!(c instanceof BitSet310))
+			return super.removeAll(c);
+		long[] other = ((BitSet310<?>)c).words;
+		long[] before = (members == null) ? null : words.clone();
+		for(int i = 0; i < Math.min(words.length, other.length); i++)
+			words[i] &= ~other[i];
+		return recount(before);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Another BitSet310 is compared a word at a time.
+	 */
+	public boolean containsAll(Collection<?> c) {
+		if(!(c instanceof BitSet310))
+			return super.containsAll(c);
+		long[] other = ((BitSet310<?>)c).words;
+		for(int i = 0; i < other.length; i++) {
+			long mine = (i < words.length) ? words[i] : 0L;
+			if((other[i] & ~mine) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Iterator<E> iterator() {
+		return new BitIterator();
+	}
+
+	/**
+	 * Copies the components in the set out of the lookup, in ascending
+	 * order of id, into an array the size of the set, and stops using the
+	 * lookup. Later changes to whatever the lookup reads, such as the graph
+	 * the set came from, no longer show in the set. Adding or removing a
+	 * single component after this shifts the array, so it costs O(size).
+	 *
+	 * @return this set
+	 */
+	@SuppressWarnings("unchecked")
+	public BitSet310<E> detach() {
+		if(members == null) {
+			//E erases to GraphComp, so the array must really be a GraphComp[]
+			E[] copy = (E[])new GraphComp[size];
+			int k = 0;
+			for(E e : this)
+				copy[k++] = e;
+			members = copy;
+			lookup = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Counts the ids in the set below a given id, which is where the
+	 * component with that id sits among the members.
+	 *
+	 * @param id the id
+	 * @return the number of smaller ids in the set
+	 */
+	private int rank(int id) {
+		int w = id / WORD_BITS;
+		int count = Long.bitCount(words[w] & ((1L << id) - 1));
+		for(int i = 0; i < w; i++)
+			count += Long.bitCount(words[i]);
+		return count;
+	}
+
+	/**
+	 * Clears the bit of an id that is in the set.
+	 *
+	 * @param id the id
+	 */
+	private void clearBit(int id) {
+		if(members != null) {
+			int k = rank(id);
+			System.arraycopy(members, k + 1, members, k, size - k - 1);
+			members[size - 1] = null;
+		}
+		words[id / WORD_BITS] &= ~(1L << id);
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Recomputes the size with a popcount of every word after a bulk change
+	 * that only cleared bits or only set them, and drops the members whose
+	 * bits were cleared.
+	 *
+	 * @param before the words before the change if the set is detached, else null
+	 * @return true if the size changed
+	 */
+	private boolean recount(long[] before) {
+		int count = 0;
+		for(long w : words)
+			count += Long.bitCount(w);
+		if(count == size)
+			return false;
+		if(before != null) {
+			//slide the members that kept their bits down over the others
+			int k = 0;
+			int kept = 0;
+			for(int i = 0; i < before.length; i++) {
+				for(long b = before[i]; b != 0; b &= b - 1, k++) {
+					if((words[i] & Long.lowestOneBit(b)) != 0)
+						members[kept++] = members[k];
+				}
+			}
+			Arrays.fill(members, kept, k, null);
+		}
+		size = count;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Iterator over the ids in ascending order, skipping empty words whole
+	 * and taking the set bits of a word lowest first.
+	 */
+	private class BitIterator implements Iterator<E> {
+
+		/**
+		 * Index of the word being read.
+		 */
+		private int index = -1;
+
+		/**
+		 * The bits of that word not yet returned.
+		 */
+		private long word;
+
+		/**
+		 * The id last returned, or -1 if none or removed.
+		 */
+		private int last = -1;
+
+		/**
+		 * Number of ids returned and not removed, which is where the next
+		 * component sits among the members.
+		 */
+		private int position;
+
+		/**
+		 * Value of modCount the iterator expects.
+		 */
+		private int expectedModCount = modCount;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean hasNext() {
+			while(word == 0 && index + 1 < words.length)
+				word = words[++index];
+			return word != 0;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public E next() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(!hasNext())
+				throw new NoSuchElementException();
+			last = index * WORD_BITS + Long.numberOfTrailingZeros(word);
+			word &= word - 1; //drop the lowest set bit
+			return (members != null) ? members[position++] : lookup.apply(last);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void remove() {
+			if(last < 0)
+				throw new IllegalStateException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			clearBit(last);
+			position--;
+			expectedModCount = modCount;
+			last = -1;
+		}
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		GraphNode[] nodes = new GraphNode[200];
+		for(int i = 0; i < nodes.length; i++)
+			nodes[i] = new GraphNode(i);
+
+		BitSet310<GraphNode> set = new BitSet310<>(id -> nodes[id], 10);
+		if(set.add(nodes[3]) && set.add(nodes[130]) && !set.add(new GraphNode(3)) && set.size() == 2 &&
+			set.contains(nodes[130]) && !set.contains(nodes[129]) && !set.contains("130")) {
+			System.out.println("Yay 1");
+		}
+
+		for(int i = 0; i < nodes.length; i += 7)
+			set.add(nodes[i]);
+		StringBuilder sb = new StringBuilder();
+		int count = 0;
+		for(Iterator<GraphNode> it = set.iterator(); it.hasNext(); ) {
+			GraphNode n = it.next();
+			if(count++ < 4)
+				sb.append(n).append(' ');
+			if(n.getId() % 2 == 1)
+				it.remove();
+		}
+		if(sb.toString().equals("0 3 7 14 ") && count == 31 && set.size() == 16 && !set.contains(nodes[7])) {
+			System.out.println("Yay 2");
+		}
+
+		BitSet310<GraphNode> other = new BitSet310<>(id -> nodes[id], 0);
+		other.add(nodes[14]);
+		other.add(nodes[130]);
+		other.add(nodes[199]);
+		BitSet310<GraphNode> copy = new BitSet310<>(id -> nodes[id], 0);
+		copy.addAll(set);
+		if(copy.equals(set) && !set.containsAll(other) && copy.retainAll(other) && copy.size() == 2 &&
+			set.containsAll(copy) && set.removeAll(other) && set.size() == 14 && !set.contains(nodes[14])) {
+			System.out.println("Yay 3");
+		}
+
+		//a detached set hands back what it held, whatever happens to the lookup
+		BitSet310<GraphNode> own = new BitSet310<>(id -> nodes[id], 4);
+		own.add(nodes[2]);
+		own.add(nodes[150]);
+		own.detach().addAll(other);
+		GraphNode old150 = nodes[150];
+		nodes[150] = new GraphNode(150);
+		own.remove(nodes[2]);
+		BitSet310<GraphNode> drop = new BitSet310<>(id -> nodes[id], 0);
+		drop.add(nodes[130]);
+		boolean same = false;
+		if(own.removeAll(drop) && own.add(nodes[7])) {
+			for(Iterator<GraphNode> it = own.iterator(); it.hasNext(); ) {
+				GraphNode n = it.next();
+				same |= (n == old150);
+				if(n.getId() == 14)
+					it.remove();
+			}
+		}
+		BitSet310<GraphNode> kept = new BitSet310<>(0);
+		for(int i = nodes.length - 1; i >= 0; i -= 40)
+			kept.add(nodes[i]);
+		if(same && own.size() == 3 && own.toString().equals("[7, 150, 199]") && !own.contains(nodes[14]) &&
+			kept.toString().equals("[39, 79, 119, 159, 199]") && kept.iterator().next() == nodes[39]) {
+			System.out.println("Yay 4");
+		}
+	}
+}
@@ -0,0 +1,328 @@
+import edu.uci.ics.jung.graph.Graph;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Computes minimum spanning forests with Boruvka's algorithm on a
+ * ForkJoinPool. Each round finds the cheapest edge leaving every component
+ * in parallel, then contracts the components along those edges in parallel
+ * through a lock-free union-find, so there are at most log V rounds.
+ *
+ * <p>Edges are ranked once in GraphEdge.compareTo order by EdgeSort310 and
+ * compared by rank, so no two edges tie. The minimum spanning forest is
+ * then unique and is exactly the one Kruskal310 and MST310 find.
+ *
+ * <p>Reading the graph and ranking the edges are sequential, O(E) passes;
+ * the rounds split the surviving edges and the vertex ids into chunks
+ * handed to the pool. Edges inside one component are dropped as they are
+ * found, so each round scans fewer edges.
+ */
+class Boruvka310 {
+
+	/**
+	 * Edges or ids per parallel chunk.
+	 */
+	private static final int CHUNK = 1 << 14;
+
+	/**
+	 * Marks a component that has no cheapest edge yet.
+	 */
+	private static final int NONE = Integer.MAX_VALUE;
+
+	/**
+	 * Not instantiable: all methods are static.
+	 */
+	private Boruvka310() {
+	}
+
+	/**
+	 * A union-find forest over vertex ids that threads can share. Finds
+	 * halve paths and unions link one root under another with a single
+	 * compare-and-set, always hanging the smaller id under the larger, so
+	 * concurrent unions cannot form a cycle.
+	 */
+	private static class ConcurrentForest {
+
+		/**
+		 * The parent of each id; roots are their own parents.
+		 */
+		private final AtomicIntegerArray parent;
+
+		/**
+		 * Makes every id from 0 to maxId a set of its own.
+		 *
+		 * @param maxId the largest id
+		 */
+		ConcurrentForest(int maxId) {
+			parent = new AtomicIntegerArray(maxId + 1);
+			for(int i = 0; i <= maxId; i++)
+				parent.set(i, i);
+		}
+
+		/**
+		 * Finds the root of the set of an id, pointing each id on the way at
+		 * its grandparent.
+		 *
+		 * @param id the id
+		 * @return the root
+		 */
+		int find(int id) {
+			while(true) {
+				int p = parent.get(id);
+				if(p == id)
+					return id;
+				int g = parent.get(p);
+				if(g != p)
+					parent.compareAndSet(id, p, g); //losing the race only skips a shortcut
+				id = p;
+			}
+		}
+
+		/**
+		 * Merges the sets of two ids.
+		 *
+		 * @param a one id
+		 * @param b the other id
+		 * @return true if this call merged two different sets
+		 */
+		boolean union(int a, int b) {
+			while(true) {
+				a = find(a);
+				b = find(b);
+				if(a == b)
+					return false;
+				if(a > b) {
+					int t = a;
+					a = b;
+					b = t;
+				}
+				if(parent.compareAndSet(a, a, b))
+					return true;
+				//a stopped being a root under us; look again
+			}
+		}
+	}
+
+	/**
+	 * Runs a body over chunk numbers lo..hi-1, splitting the range in half
+	 * until a single chunk is left.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+
+		/**
+		 * Keeps the serialization lint quiet; tasks are never serialized.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The first chunk.
+		 */
+		private final int lo;
+
+		/**
+		 * One past the last chunk.
+		 */
+		private final int hi;
+
+		/**
+		 * The work for one chunk.
+		 */
+		private final IntConsumer body;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param lo the first chunk
+		 * @param hi one past the last chunk
+		 * @param body the work for one chunk
+		 */
+		ChunkTask(int lo, int hi, IntConsumer body) {
+			this.lo = lo;
+			this.hi = hi;
+			this.body = body;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		protected void compute() {
+			if(hi - lo == 1) {
+				body.accept(lo);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new ChunkTask(lo, mid, body), new ChunkTask(mid, hi, body));
+		}
+	}
+
+	/**
+	 * Computes a minimum spanning forest on the common pool.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 * @return the spanning forest
+	 * @see #computeMinimumSpanningForest(Graph, ForkJoinPool)
+	 */
+	public static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph) {
+		return computeMinimumSpanningForest(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes a minimum spanning forest of a graph: a minimum spanning tree
+	 * of every connected component, the same one Kruskal310 finds. Selected
+	 * edges are reported in GraphEdge.compareTo order. The graph is only
+	 * read, and only by the calling thread.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 * @param pool the pool that runs the rounds
+	 * @return the spanning forest
+	 */
+	public static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph, ForkJoinPool pool) {
+		Collection<GraphNode> vertices = graph.getVertices();
+		EdgeList310 list = new EdgeList310(graph);
+		int m = list.size();
+		GraphEdge[] edges = list.edges;
+		int[] first = list.first;
+		int[] second = list.second;
+		int maxId = list.maxId;
+
+		//the rank of an edge replaces its (weight, id) pair from here on
+		int[] order = EdgeSort310.order(list.weights, list.ids, m);
+		int[] rank = new int[m];
+		for(int r = 0; r < m; r++)
+			rank[order[r]] = r;
+
+		ConcurrentForest forest = new ConcurrentForest(maxId);
+		AtomicIntegerArray cheapest = new AtomicIntegerArray(maxId + 1);
+		for(int i = 0; i <= maxId; i++)
+			cheapest.set(i, NONE);
+		boolean[] chosen = new boolean[m];
+
+		//edges whose endpoints are still in different components
+		int[] live = new int[m];
+		for(int e = 0; e < m; e++)
+			live[e] = e;
+		int liveCount = m;
+		int[] kept = new int[(m + CHUNK - 1) / CHUNK];
+		int idChunks = (maxId + CHUNK) / CHUNK;
+
+		while(liveCount > 0) {
+			//find the cheapest edge out of every component, dropping inner edges
+			final int count = liveCount;
+			int chunks = (count + CHUNK - 1) / CHUNK;
+			pool.invoke(new ChunkTask(0, chunks, c -> {
+				int lo = c * CHUNK;
+				int hi = Math.min(count, lo + CHUNK);
+				int out = lo;
+				for(int i = lo; i < hi; i++) {
+					int e = live[i];
+					int a = forest.find(first[e]);
+					int b = forest.find(second[e]);
+					if(a == b)
+						continue;
+					live[out++] = e;
+					lower(cheapest, a, rank[e]);
+					lower(cheapest, b, rank[e]);
+				}
+				kept[c] = out - lo;
+			}));
+
+			liveCount = 0;
+			for(int c = 0; c < chunks; c++) {
+				System.arraycopy(live, c * CHUNK, live, liveCount, kept[c]);
+				liveCount += kept[c];
+			}
+			if(liveCount == 0)
+				break;
+
+			//contract along the cheapest edges; an edge picked by both its sides merges once
+			pool.invoke(new ChunkTask(0, idChunks, c -> {
+				int hi = Math.min(cheapest.length(), (c + 1) * CHUNK);
+				for(int id = c * CHUNK; id < hi; id++) {
+					int r = cheapest.get(id);
+					if(r == NONE)
+						continue;
+					cheapest.set(id, NONE);
+					int e = order[r];
+					if(forest.union(first[e], second[e]))
+						chosen[e] = true;
+				}
+			}));
+		}
+
+		GraphEdge[] selected = new GraphEdge[Math.max(0, vertices.size() - 1)];
+		int[] selectedEnds = new int[selected.length];
+		int count = 0;
+		for(int r = 0; r < m; r++) {
+			int e = order[r];
+			if(chosen[e]) {
+				selected[count] = edges[e];
+				selectedEnds[count++] = first[e];
+			}
+		}
+		return new SpanningForest310(selected, selectedEnds, count, forest::find, vertices);
+	}
+
+	/**
+	 * Lowers an entry of an array to a value if it is larger.
+	 *
+	 * @param array the array
+	 * @param i the entry
+	 * @param value the value
+	 */
+	private static void lower(AtomicIntegerArray array, int i, int value) {
+		int old = array.get(i);
+		while(value < old && !array.compareAndSet(i, old, value))
+			old = array.get(i);
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		//a sparse graph of scattered ids: three chains with cross links, and isolated vertices
+		Graph310 graph = new Graph310();
+		GraphNode[] nodes = new GraphNode[300];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = new GraphNode(7 * i + 3);
+			graph.addVertex(nodes[i]);
+		}
+		int id = 0;
+		for(int i = 0; i + 3 < 270; i++) {
+			graph.addEdge(new GraphEdge(id++, 1 + (i * 13) % 10), nodes[i], nodes[i + 3]);
+			if(i % 5 == 0 && i + 6 < 270)
+				graph.addEdge(new GraphEdge(id++, 1 + (i * 7) % 10), nodes[i], nodes[i + 6]);
+		}
+		SpanningForest310 mst = computeMinimumSpanningForest(graph);
+		if(mst.edges().equals(MST310.computeMinimumSpanningForest(graph).edges()) && mst.treeCount() == 33 &&
+			mst.edges().size() == 267 && mst.tree(mst.treeOf(nodes[299])).isEmpty()) {
+			System.out.println("Yay 1");
+		}
+
+		//a grid of equal weights: only the ids decide, as in Kruskal310
+		graph = new Graph310();
+		int side = 40;
+		GraphNode[] grid = new GraphNode[side * side];
+		for(int i = 0; i < grid.length; i++)
+			grid[i] = new GraphNode(i);
+		id = 0;
+		for(int i = 0; i < grid.length; i++) {
+			if(i % side + 1 < side)
+				graph.addEdge(new GraphEdge(id++, 1 + i % 3), grid[i], grid[i + 1]);
+			if(i + side < grid.length)
+				graph.addEdge(new GraphEdge(id++, 1 + i % 3), grid[i], grid[i + side]);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		mst = computeMinimumSpanningForest(graph, pool);
+		pool.shutdown();
+		if(mst.edges().equals(MST310.computeMinimumSpanningForest(graph).edges()) && mst.treeCount() == 1 &&
+			mst.edges().size() == grid.length - 1) {
+			System.out.println("Yay 2");
+		}
+	}
+}
@@ -0,0 +1,703 @@
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+
+import edu.uci.ics.jung.graph.util.Pair;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.IntFunction;
+
+/**
+ * An immutable snapshot of an undirected graph in compressed sparse row
+ * form. Vertices and edges are numbered 0..n-1 and 0..m-1 in ascending
+ * order of their ids, and the neighbourhood of vertex v is the run of slots
+ * offsets[v] .. offsets[v+1]-1 in three parallel arrays: the neighbour, the
+ * edge to it and the weight of that edge.
+ *
+ * <p>Algorithms can walk the primitive arrays through the index methods
+ * (vertexCount, firstSlot, neighborAt, ...) with sequential memory access
+ * and no allocation. The snapshot also implements the JUNG graph interface
+ * over the same arrays, so it can be handed to anything that reads a
+ * Graph310; every method that would change the graph throws
+ * UnsupportedOperationException.
+ *
+ * <p>Later changes to the graph the snapshot was taken from are not seen,
+ * but the GraphNode and GraphEdge objects are shared with it.
+ */
+class CSRGraph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,GraphEdge>
+{
+	/**
+	 * The vertices by index, in ascending order of id.
+	 */
+	private final GraphNode[] vertices;
+
+	/**
+	 * The id of each vertex, ascending, for index lookups.
+	 */
+	private final int[] vertexIds;
+
+	/**
+	 * The edges by index, in ascending order of id.
+	 */
+	private final GraphEdge[] edges;
+
+	/**
+	 * The id of each edge, ascending, for index lookups.
+	 */
+	private final int[] edgeIds;
+
+	/**
+	 * The lower-id endpoint of each edge.
+	 */
+	private final int[] edgeSources;
+
+	/**
+	 * The higher-id endpoint of each edge.
+	 */
+	private final int[] edgeTargets;
+
+	/**
+	 * The weight of each edge.
+	 */
+	private final int[] edgeWeights;
+
+	/**
+	 * Where the slots of each vertex start; offsets[n] is the number of slots.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * The neighbour in each slot.
+	 */
+	private final int[] neighbors;
+
+	/**
+	 * The edge in each slot.
+	 */
+	private final int[] slotEdges;
+
+	/**
+	 * The weight of the edge in each slot.
+	 */
+	private final int[] slotWeights;
+
+	/**
+	 * Takes a snapshot of a graph.
+	 * @param graph The graph to copy.
+	 */
+	public CSRGraph310(Graph<GraphNode,GraphEdge> graph)
+	{
+		int n = graph.getVertexCount();
+		int m = graph.getEdgeCount();
+
+		vertices = graph.getVertices().toArray(new GraphNode[n]);
+		Arrays.sort(vertices, (a, b) -> Integer.compare(a.getId(), b.getId()));
+		vertexIds = new int[n];
+		for(int i = 0; i < n; i++)
+			vertexIds[i] = vertices[i].getId();
+
+		edges = graph.getEdges().toArray(new GraphEdge[m]);
+		Arrays.sort(edges, (a, b) -> Integer.compare(a.getId(), b.getId()));
+		edgeIds = new int[m];
+		edgeSources = new int[m];
+		edgeTargets = new int[m];
+		edgeWeights = new int[m];
+		offsets = new int[n + 1];
+		for(int e = 0; e < m; e++)
+		{
+			Pair<GraphNode> ends = graph.getEndpoints(edges[e]);
+			int u = indexOf(ends.getFirst());
+			int v = indexOf(ends.getSecond());
+			edgeIds[e] = edges[e].getId();
+			edgeSources[e] = Math.min(u, v);
+			edgeTargets[e] = Math.max(u, v);
+			edgeWeights[e] = edges[e].getWeight();
+			offsets[u + 1]++;
+			offsets[v + 1]++;
+		}
+
+		//prefix sums turn the degrees into slot ranges
+		for(int v = 0; v < n; v++)
+			offsets[v + 1] += offsets[v];
+
+		neighbors = new int[2 * m];
+		slotEdges = new int[2 * m];
+		slotWeights = new int[2 * m];
+		int[] fill = Arrays.copyOf(offsets, n);
+		for(int e = 0; e < m; e++)
+		{
+			int u = edgeSources[e];
+			int v = edgeTargets[e];
+			place(fill[u]++, v, e);
+			place(fill[v]++, u, e);
+		}
+	}
+
+	/**
+	 * Fills in one slot.
+	 * @param slot The slot.
+	 * @param neighbor The neighbour reached through it.
+	 * @param edge The edge to the neighbour.
+	 */
+	private void place(int slot, int neighbor, int edge)
+	{
+		neighbors[slot] = neighbor;
+		slotEdges[slot] = edge;
+		slotWeights[slot] = edgeWeights[edge];
+	}
+
+	//--------------------------------------------------------
+	// Index access for algorithms: no allocation, no boxing.
+	//--------------------------------------------------------
+
+	/**
+	 * Returns the number of vertices, which are numbered 0..vertexCount()-1.
+	 * @return The number of vertices.
+	 */
+	public int vertexCount() { return vertices.length; }
+
+	/**
+	 * Returns the number of edges, which are numbered 0..edgeCount()-1.
+	 * @return The number of edges.
+	 */
+	public int edgeCount() { return edges.length; }
+
+	/**
+	 * Returns the first slot of a vertex.
+	 * @param v The vertex index.
+	 * @return The first slot of v.
+	 */
+	public int firstSlot(int v) { return offsets[v]; }
+
+	/**
+	 * Returns the slot just past the last slot of a vertex.
+	 * @param v The vertex index.
+	 * @return The end of the slots of v.
+	 */
+	public int endSlot(int v) { return offsets[v + 1]; }
+
+	/**
+	 * Returns the degree of a vertex.
+	 * @param v The vertex index.
+	 * @return The number of neighbours of v.
+	 */
+	public int degreeOf(int v) { return offsets[v + 1] - offsets[v]; }
+
+	/**
+	 * Returns the neighbour in a slot.
+	 * @param slot The slot.
+	 * @return The vertex index of the neighbour.
+	 */
+	public int neighborAt(int slot) { return neighbors[slot]; }
+
+	/**
+	 * Returns the edge in a slot.
+	 * @param slot The slot.
+	 * @return The edge index.
+	 */
+	public int edgeAt(int slot) { return slotEdges[slot]; }
+
+	/**
+	 * Returns the weight of the edge in a slot.
+	 * @param slot The slot.
+	 * @return The weight.
+	 */
+	public int weightAt(int slot) { return slotWeights[slot]; }
+
+	/**
+	 * Returns the lower-id endpoint of an edge.
+	 * @param e The edge index.
+	 * @return The vertex index of the endpoint.
+	 */
+	public int edgeSource(int e) { return edgeSources[e]; }
+
+	/**
+	 * Returns the higher-id endpoint of an edge.
+	 * @param e The edge index.
+	 * @return The vertex index of the endpoint.
+	 */
+	public int edgeTarget(int e) { return edgeTargets[e]; }
+
+	/**
+	 * Returns the weight of an edge.
+	 * @param e The edge index.
+	 * @return The weight.
+	 */
+	public int edgeWeight(int e) { return edgeWeights[e]; }
+
+	/**
+	 * Returns the vertex with an index.
+	 * @param v The vertex index.
+	 * @return The vertex.
+	 */
+	public GraphNode vertex(int v) { return vertices[v]; }
+
+	/**
+	 * Returns the edge with an index.
+	 * @param e The edge index.
+	 * @return The edge.
+	 */
+	public GraphEdge edge(int e) { return edges[e]; }
+
+	/**
+	 * Finds the index of a vertex, by binary search on the ids.
+	 * @param vertex The vertex.
+	 * @return The index of the vertex, or -1 if it is not in the snapshot.
+	 */
+	public int indexOf(GraphNode vertex)
+	{
+		if(vertex == null)
+			return -1;
+		int i = Arrays.binarySearch(vertexIds, vertex.getId());
+		return (i < 0) ? -1 : i;
+	}
+
+	/**
+	 * Finds the index of an edge, by binary search on the ids.
+	 * @param edge The edge.
+	 * @return The index of the edge, or -1 if it is not in the snapshot.
+	 */
+	public int indexOf(GraphEdge edge)
+	{
+		if(edge == null)
+			return -1;
+		int i = Arrays.binarySearch(edgeIds, edge.getId());
+		return (i < 0) ? -1 : i;
+	}
+
+	/**
+	 * Finds the slot of v that leads to w, walking the smaller neighbourhood.
+	 * @param v The first vertex index.
+	 * @param w The second vertex index.
+	 * @return The edge index, or -1 if v and w are not adjacent.
+	 */
+	private int edgeBetween(int v, int w)
+	{
+		if(degreeOf(v) > degreeOf(w))
+		{
+			int t = v;
+			v = w;
+			w = t;
+		}
+		for(int s = offsets[v]; s < offsets[v + 1]; s++)
+		{
+			if(neighbors[s] == w)
+				return slotEdges[s];
+		}
+		return -1;
+	}
+
+	/**
+	 * Read-only list over a run of slots.
+	 * @param <T> The type handed out for each slot.
+	 */
+	private static class SlotList<T> extends AbstractList<T>
+	{
+		/**
+		 * The first slot.
+		 */
+		private final int from;
+
+		/**
+		 * The number of slots.
+		 */
+		private final int size;
+
+		/**
+		 * Turns a slot into an element.
+		 */
+		private final IntFunction<T> part;
+
+		/**
+		 * Constructor.
+		 * @param from The first slot.
+		 * @param to The slot just past the last one.
+		 * @param part Turns a slot into an element.
+		 */
+		SlotList(int from, int to, IntFunction<T> part)
+		{
+			this.from = from;
+			this.size = to - from;
+			this.part = part;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public T get(int i)
+		{
+			if(i < 0 || i >= size)
+				throw new IndexOutOfBoundsException("Index: " + i);
+			return part.apply(from + i);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public int size() { return size; }
+	}
+
+	//--------------------------------------------------------
+	// JUNG Graph interface, read from the arrays.
+	//--------------------------------------------------------
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphEdge> getEdges()
+	{
+		return Collections.unmodifiableList(Arrays.asList(edges));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphNode> getVertices()
+	{
+		return Collections.unmodifiableList(Arrays.asList(vertices));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getEdgeCount() { return edges.length; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getVertexCount() { return vertices.length; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean containsVertex(GraphNode vertex) { return indexOf(vertex) >= 0; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean containsEdge(GraphEdge edge) { return indexOf(edge) >= 0; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphNode> getNeighbors(GraphNode vertex)
+	{
+		int v = indexOf(vertex);
+		if(v < 0)
+			return null;
+		return new SlotList<>(offsets[v], offsets[v + 1], s -> vertices[neighbors[s]]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphEdge> getIncidentEdges(GraphNode vertex)
+	{
+		int v = indexOf(vertex);
+		if(v < 0)
+			return null;
+		return new SlotList<>(offsets[v], offsets[v + 1], s -> edges[slotEdges[s]]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getNeighborCount(GraphNode vertex)
+	{
+		int v = indexOf(vertex);
+		return (v < 0) ? 0 : degreeOf(v);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public GraphEdge findEdge(GraphNode v1, GraphNode v2)
+	{
+		int v = indexOf(v1);
+		int w = indexOf(v2);
+		if(v < 0 || w < 0)
+			return null;
+		int e = edgeBetween(v, w);
+		return (e < 0) ? null : edges[e];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphEdge> findEdgeSet(GraphNode v1, GraphNode v2)
+	{
+		GraphEdge edge = findEdge(v1, v2);
+		return (edge == null) ? null : Collections.singletonList(edge);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isIncident(GraphNode vertex, GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		int v = indexOf(vertex);
+		return e >= 0 && v >= 0 && (edgeSources[e] == v || edgeTargets[e] == v);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Pair<GraphNode> getEndpoints(GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		if(e < 0)
+			return null;
+		return new Pair<>(vertices[edgeSources[e]], vertices[edgeTargets[e]]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphNode> getIncidentVertices(GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		if(e < 0)
+			return null;
+		return Collections.unmodifiableList(Arrays.asList(vertices[edgeSources[e]], vertices[edgeTargets[e]]));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public GraphNode getOpposite(GraphNode vertex, GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		int v = indexOf(vertex);
+		if(e < 0 || v < 0 || (edgeSources[e] != v && edgeTargets[e] != v))
+			throw new IllegalArgumentException(vertex + " is not incident to " + edge);
+		return vertices[(edgeSources[e] == v) ? edgeTargets[e] : edgeSources[e]];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isNeighbor(GraphNode v1, GraphNode v2) { return findEdge(v1, v2) != null; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int degree(GraphNode vertex) { return getNeighborCount(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphEdge> getInEdges(GraphNode vertex) { return getIncidentEdges(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphEdge> getOutEdges(GraphNode vertex) { return getIncidentEdges(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int inDegree(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int outDegree(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphNode> getPredecessors(GraphNode vertex) { return getNeighbors(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphNode> getSuccessors(GraphNode vertex) { return getNeighbors(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getPredecessorCount(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getSuccessorCount(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isPredecessor(GraphNode v1, GraphNode v2) { return isNeighbor(v1, v2); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isSuccessor(GraphNode v1, GraphNode v2) { return isNeighbor(v1, v2); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public GraphNode getSource(GraphEdge directedEdge) { return null; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public GraphNode getDest(GraphEdge directedEdge) { return null; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isSource(GraphNode vertex, GraphEdge edge) { return false; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isDest(GraphNode vertex, GraphEdge edge) { return false; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<GraphEdge> getEdges(EdgeType edgeType)
+	{
+		return (edgeType == EdgeType.UNDIRECTED) ? getEdges() : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getEdgeCount(EdgeType edgeType)
+	{
+		return (edgeType == EdgeType.UNDIRECTED) ? edges.length : 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public EdgeType getEdgeType(GraphEdge edge) { return EdgeType.UNDIRECTED; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public EdgeType getDefaultEdgeType() { return EdgeType.UNDIRECTED; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getIncidentCount(GraphEdge edge) { return 2; }
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param vertex Ignored.
+	 * @return Never returns.
+	 */
+	public boolean addVertex(GraphNode vertex) { throw new UnsupportedOperationException(); }
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param vertex Ignored.
+	 * @return Never returns.
+	 */
+	public boolean removeVertex(GraphNode vertex) { throw new UnsupportedOperationException(); }
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param edge Ignored.
+	 * @return Never returns.
+	 */
+	public boolean removeEdge(GraphEdge edge) { throw new UnsupportedOperationException(); }
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param e Ignored.
+	 * @param v1 Ignored.
+	 * @param v2 Ignored.
+	 * @return Never returns.
+	 */
+	public boolean addEdge(GraphEdge e, GraphNode v1, GraphNode v2) { throw new UnsupportedOperationException(); }
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param e Ignored.
+	 * @param v1 Ignored.
+	 * @param v2 Ignored.
+	 * @param edgeType Ignored.
+	 * @return Never returns.
+	 */
+	public boolean addEdge(GraphEdge e, GraphNode v1, GraphNode v2, EdgeType edgeType)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param edge Ignored.
+	 * @param vertices Ignored.
+	 * @return Never returns.
+	 */
+	public boolean addEdge(GraphEdge edge, Collection<? extends GraphNode> vertices)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Not supported: the snapshot is immutable.
+	 * @param edge Ignored.
+	 * @param vertices Ignored.
+	 * @param edgeType Ignored.
+	 * @return Never returns.
+	 */
+	public boolean addEdge(GraphEdge edge, Collection<? extends GraphNode> vertices, EdgeType edgeType)
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Main method for testing.
+	 * @param args Not used.
+	 */
+	public static void main(String[] args)
+	{
+		GraphNode[] nodes = new GraphNode[5];
+		Graph310 graph = new Graph310();
+		for(int i = 0; i < nodes.length; i++)
+		{
+			nodes[i] = new GraphNode(4 - i); //ids in reverse, indexes follow ids
+			graph.addVertex(nodes[i]);
+		}
+		GraphEdge[] edges = {
+			new GraphEdge(0, 5), new GraphEdge(1, 3), new GraphEdge(2, 8), new GraphEdge(3, 1)
+		};
+		graph.addEdge(edges[0], nodes[0], nodes[1]); //4-3
+		graph.addEdge(edges[1], nodes[1], nodes[2]); //3-2
+		graph.addEdge(edges[2], nodes[4], nodes[1]); //0-3
+		graph.addEdge(edges[3], nodes[4], nodes[2]); //0-2
+
+		CSRGraph310 csr = graph.snapshot();
+		if(csr.vertexCount() == 5 && csr.edgeCount() == 4 && csr.vertex(0) == nodes[4] &&
+			csr.indexOf(nodes[1]) == 3 && csr.degreeOf(3) == 3 && csr.degreeOf(1) == 0 &&
+			csr.edgeSource(2) == 0 && csr.edgeTarget(2) == 3 && csr.edgeWeight(2) == 8) {
+			System.out.println("Yay 1");
+		}
+
+		//sum the weights around vertex 3 straight from the arrays
+		int sum = 0;
+		for(int s = csr.firstSlot(3); s < csr.endSlot(3); s++)
+			sum += csr.weightAt(s);
+		if(sum == 16 && csr.neighborAt(csr.firstSlot(3)) == 4 && csr.edge(csr.edgeAt(csr.firstSlot(3))) == edges[0]) {
+			System.out.println("Yay 2");
+		}
+
+		//the JUNG interface reads the same arrays; the snapshot ignores later changes
+		graph.removeVertex(nodes[1]);
+		Pair<GraphNode> ends = csr.getEndpoints(edges[0]);
+		if(csr.getNeighbors(nodes[1]).size() == 3 && csr.findEdge(nodes[2], nodes[4]) == edges[3] &&
+			ends.getFirst() == nodes[1] && ends.getSecond() == nodes[0] && csr.getOpposite(nodes[0], edges[0]) == nodes[1] &&
+			csr.getIncidentEdges(nodes[3]).isEmpty() && csr.findEdge(nodes[0], nodes[2]) == null &&
+			graph.getEdgeCount() == 1) {
+			System.out.println("Yay 3");
+		}
+	}
+}
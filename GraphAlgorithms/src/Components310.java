@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+/**
+ * The connected components of a graph, as found by
+ * Graph310.connectedComponents(): every vertex carries the number of its
+ * component, 0..count()-1 in the order they were found, and the size of
+ * every component is kept.
+ *
+ * <p>Labels of vertices with dense ids sit in an int array indexed by id;
+ * any others go in a hashed Map310. The labelling is a snapshot and does
+ * not follow later changes to the graph.
+ */
+class Components310 {
+
+	/**
+	 * The component of each dense id, or -1.
+	 */
+	private int[] labelById;
+
+	/**
+	 * Components of vertices whose ids are not dense; null until needed.
+	 */
+	private Map310<GraphNode,Integer> others;
+
+	/**
+	 * The size of each component.
+	 */
+	private int[] sizes = new int[16];
+
+	/**
+	 * The number of components.
+	 */
+	private int count;
+
+	/**
+	 * Starts an empty labelling.
+	 *
+	 * @param denseIds ids below this are labelled through the array
+	 */
+	Components310(int denseIds) {
+		labelById = new int[denseIds];
+		Arrays.fill(labelById, -1);
+	}
+
+	/**
+	 * Opens a new component; vertices added from now on belong to it.
+	 */
+	void newComponent() {
+		if(count == sizes.length)
+			sizes = Arrays.copyOf(sizes, 2 * count);
+		count++;
+	}
+
+	/**
+	 * Puts a vertex in the newest component.
+	 *
+	 * @param vertex the vertex, not yet labelled
+	 */
+	void add(GraphNode vertex) {
+		int id = vertex.getId();
+		if(id >= 0 && id < labelById.length)
+			labelById[id] = count - 1;
+		else {
+			if(others == null)
+				others = new Map310<>(true);
+			others.put(vertex, count - 1);
+		}
+		sizes[count - 1]++;
+	}
+
+	/**
+	 * Reports the number of components.
+	 *
+	 * @return the number of components
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Reports the component of a vertex.
+	 *
+	 * @param vertex the vertex
+	 * @return its component, or -1 if it was not in the graph
+	 */
+	public int componentOf(GraphNode vertex) {
+		if(vertex == null)
+			return -1;
+		int id = vertex.getId();
+		if(id >= 0 && id < labelById.length)
+			return labelById[id];
+		Integer label = (others == null) ? null : others.get(vertex);
+		return (label == null) ? -1 : label;
+	}
+
+	/**
+	 * Reports the number of vertices in a component.
+	 *
+	 * @param component the component
+	 * @return its size
+	 * @throws IndexOutOfBoundsException if there is no such component
+	 */
+	public int size(int component) {
+		if(component < 0 || component >= count)
+			throw new IndexOutOfBoundsException("Component: " + component);
+		return sizes[component];
+	}
+
+	/**
+	 * Reports the sizes of all components.
+	 *
+	 * @return a new array with the size of component i at i
+	 */
+	public int[] sizes() {
+		return Arrays.copyOf(sizes, count);
+	}
+
+	/**
+	 * Reports whether two vertices are in the same component.
+	 *
+	 * @param a one vertex
+	 * @param b the other vertex
+	 * @return true if both were in the graph and are connected
+	 */
+	public boolean connected(GraphNode a, GraphNode b) {
+		int c = componentOf(a);
+		return c >= 0 && c == componentOf(b);
+	}
+}
@@ -0,0 +1,258 @@
+import edu.uci.ics.jung.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes minimum spanning forests of dense graphs with the O(V^2) array
+ * version of Prim's algorithm. The graph is copied into a flat V*V int
+ * matrix, and each step is one pass over a matrix row and the distance
+ * array: lower every distance through the vertex that just joined, and find
+ * the smallest distance left. On a (nearly) complete graph that is no more
+ * work than reading the edges once, with no heap, no adjacency maps and
+ * nothing but sequential int loads.
+ *
+ * <p>The matrix holds each edge's rank in GraphEdge.compareTo order (from
+ * EdgeSort310) rather than its weight. Ranks order the same way as the
+ * weights, but no two are equal, so ids break ties as in Kruskal310 and
+ * the forest is the one Kruskal310 finds. The selected edge of a vertex is
+ * its distance itself.
+ *
+ * <p>The row pass runs on the jdk.incubator.vector API when the
+ * DensePrimVector310 kernel (in ../vector) has been compiled and the
+ * module is added with --add-modules jdk.incubator.vector; otherwise the
+ * scalar loop below is used. Both give the same result.
+ */
+class DensePrim310 {
+
+	/**
+	 * Marks a missing edge, and in the done mask a vertex in the tree.
+	 */
+	static final int NONE = Integer.MAX_VALUE;
+
+	/**
+	 * One step of the row pass: for every vertex w, lowers dist[w] to
+	 * matrix[row + w] unless done[w] is NONE, then finds the smallest
+	 * distance.
+	 */
+	interface Kernel {
+
+		/**
+		 * Runs the row pass.
+		 *
+		 * @param matrix the rank matrix
+		 * @param row where the row of the vertex that joined starts
+		 * @param dist the distance of each vertex, NONE for none
+		 * @param done NONE for a vertex in the tree, 0 for any other
+		 * @param n the number of vertices
+		 * @return the vertex with the smallest distance, or -1 if none is below NONE
+		 */
+		int relax(int[] matrix, int row, int[] dist, int[] done, int n);
+	}
+
+	/**
+	 * The fastest kernel that loads.
+	 */
+	private static final Kernel KERNEL = loadKernel();
+
+	/**
+	 * Not instantiable: all methods are static.
+	 */
+	private DensePrim310() {
+	}
+
+	/**
+	 * Reports whether the row pass runs on the Vector API.
+	 *
+	 * @return true if the vector kernel is in use
+	 */
+	public static boolean isVectorized() {
+		return !(KERNEL instanceof ScalarKernel);
+	}
+
+	/**
+	 * Computes a minimum spanning forest of a graph: a minimum spanning tree
+	 * of every connected component, the same one Kruskal310 finds. Selected
+	 * edges are reported in the order Prim's algorithm takes them, tree by
+	 * tree. This needs V*V ints of memory, so it is meant for graphs with
+	 * most of their V*(V-1)/2 possible edges; sparse graphs are better
+	 * served by MST310 or Prim310.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 * @return the spanning forest
+	 * @throws IllegalArgumentException if V*V does not fit in an array
+	 */
+	public static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph) {
+		return computeMinimumSpanningForest(graph, KERNEL);
+	}
+
+	/**
+	 * Computes a minimum spanning forest with a given kernel.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 * @param kernel the row pass
+	 * @return the spanning forest
+	 */
+	private static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph, Kernel kernel) {
+		Collection<GraphNode> all = graph.getVertices();
+		int n = all.size();
+		if((long)n * n > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many vertices for a dense matrix: " + n);
+
+		//vertices by index in ascending order of id, as in a snapshot
+		CSRGraph310 csr = (graph instanceof CSRGraph310) ? (CSRGraph310)graph : null;
+		GraphNode[] vertices = all.toArray(new GraphNode[n]);
+		if(csr == null)
+			Arrays.sort(vertices, (a, b) -> Integer.compare(a.getId(), b.getId()));
+		int maxId = (n == 0) ? -1 : vertices[n - 1].getId();
+		int[] indexById = new int[maxId + 1];
+		for(int v = 0; v < n; v++)
+			indexById[vertices[v].getId()] = v;
+
+		//endpoints by vertex index, and the edges in rank order
+		EdgeList310 list = new EdgeList310(graph);
+		int m = list.size();
+		GraphEdge[] edges = list.edges;
+		int[] first = new int[m];
+		int[] second = new int[m];
+		for(int e = 0; e < m; e++) {
+			first[e] = indexById[list.first[e]];
+			second[e] = indexById[list.second[e]];
+		}
+		int[] order = EdgeSort310.order(list.weights, list.ids, m);
+
+		//the rank matrix; of parallel edges the first ranked wins
+		int[] matrix = new int[n * n];
+		Arrays.fill(matrix, NONE);
+		for(int r = m - 1; r >= 0; r--) {
+			int u = first[order[r]];
+			int v = second[order[r]];
+			if(u != v) {
+				matrix[u * n + v] = r;
+				matrix[v * n + u] = r;
+			}
+		}
+
+		int[] dist = new int[n];
+		Arrays.fill(dist, NONE);
+		int[] done = new int[n];
+		int[] root = new int[n];
+		GraphEdge[] selected = new GraphEdge[Math.max(0, n - 1)];
+		int[] selectedEnds = new int[selected.length];
+		int count = 0;
+
+		for(int r = 0; r < n; r++) {
+			if(done[r] == NONE)
+				continue;
+			int v = r;
+			while(true) {
+				done[v] = NONE;
+				dist[v] = NONE;
+				root[v] = r;
+				int next = kernel.relax(matrix, v * n, dist, done, n);
+				if(next < 0)
+					break;
+				selected[count] = edges[order[dist[next]]];
+				selectedEnds[count++] = vertices[next].getId();
+				v = next;
+			}
+		}
+
+		int[] rootById = new int[maxId + 1];
+		for(int v = 0; v < n; v++)
+			rootById[vertices[v].getId()] = vertices[root[v]].getId();
+		return new SpanningForest310(selected, selectedEnds, count, id -> rootById[id], all);
+	}
+
+	/**
+	 * The row pass as a plain loop, for when the Vector API is missing.
+	 */
+	private static class ScalarKernel implements Kernel {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public int relax(int[] matrix, int row, int[] dist, int[] done, int n) {
+			int min = NONE;
+			int at = -1;
+			for(int w = 0; w < n; w++) {
+				//a done vertex reads NONE, which never lowers anything
+				int d = Math.min(dist[w], matrix[row + w] | done[w]);
+				dist[w] = d;
+				if(d < min) {
+					min = d;
+					at = w;
+				}
+			}
+			return at;
+		}
+	}
+
+	/**
+	 * Loads the vector kernel if it was compiled and its module is present,
+	 * and tries it once, since a missing module only shows when the kernel
+	 * first runs.
+	 *
+	 * @return the vector kernel, or the scalar one
+	 */
+	private static Kernel loadKernel() {
+		try {
+			Kernel vector = (Kernel)Class.forName("DensePrimVector310").getDeclaredConstructor().newInstance();
+			int[] dist = { NONE, 5, NONE };
+			if(vector.relax(new int[] { 0, 3, 1 }, 0, dist, new int[] { NONE, 0, 0 }, 3) == 2 && dist[1] == 3)
+				return vector;
+		}
+		catch(ReflectiveOperationException | LinkageError | ClassCastException e) {
+			//no kernel, or no jdk.incubator.vector
+		}
+		return new ScalarKernel();
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		//two dense clusters with a fifth of their edges missing, and an isolated vertex
+		Graph310 graph = new Graph310();
+		GraphNode[] nodes = new GraphNode[61];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = new GraphNode(i);
+			graph.addVertex(nodes[i]);
+		}
+		int id = 0;
+		for(int i = 0; i < 60; i++)
+			for(int j = i + 1; j < 60; j++)
+				if(i % 2 == j % 2 && (i * 7 + j * 3) % 5 != 0)
+					graph.addEdge(new GraphEdge(id++, 1 + (i * 13 + j * 29) % 20), nodes[i], nodes[j]);
+		SpanningForest310 mst = computeMinimumSpanningForest(graph);
+		List<GraphEdge> sorted = new ArrayList<>(mst.edges());
+		Collections.sort(sorted);
+		if(sorted.equals(MST310.computeMinimumSpanningForest(graph).edges()) && mst.treeCount() == 3 &&
+			mst.edges().size() == 58 && mst.tree(mst.treeOf(nodes[60])).isEmpty()) {
+			System.out.println("Yay 1");
+		}
+
+		//a complete graph with sparse ids and tied weights, on whichever kernel loaded and on the scalar one
+		graph = new Graph310();
+		GraphNode[] complete = new GraphNode[70];
+		for(int i = 0; i < complete.length; i++)
+			complete[i] = new GraphNode(3 * i + 1);
+		id = 0;
+		for(int i = 0; i < complete.length; i++)
+			for(int j = i + 1; j < complete.length; j++)
+				graph.addEdge(new GraphEdge(id++, 1 + (i * 31 + j * 17) % 5), complete[i], complete[j]);
+		mst = computeMinimumSpanningForest(graph);
+		sorted = new ArrayList<>(mst.edges());
+		Collections.sort(sorted);
+		if(sorted.equals(MST310.computeMinimumSpanningForest(graph).edges()) && mst.treeCount() == 1 &&
+			mst.edges().equals(computeMinimumSpanningForest(graph, new ScalarKernel()).edges()) &&
+			computeMinimumSpanningForest(new Graph310()).treeCount() == 0) {
+			System.out.println("Yay 2");
+		}
+	}
+}
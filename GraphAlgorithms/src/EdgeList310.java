@@ -0,0 +1,84 @@
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * The edges of a graph copied into primitive arrays by edge index: the
+ * endpoint ids, weight and id of every edge. This is the first step that
+ * MST310, Boruvka310, FilterKruskal310 and DensePrim310 share; from here
+ * on they only read the arrays. A CSRGraph310 hands over its endpoints
+ * without a lookup per edge.
+ */
+class EdgeList310 {
+
+	/**
+	 * The edges by index.
+	 */
+	final GraphEdge[] edges;
+
+	/**
+	 * The id of the first endpoint of each edge.
+	 */
+	final int[] first;
+
+	/**
+	 * The id of the second endpoint of each edge.
+	 */
+	final int[] second;
+
+	/**
+	 * The weight of each edge.
+	 */
+	final int[] weights;
+
+	/**
+	 * The id of each edge.
+	 */
+	final int[] ids;
+
+	/**
+	 * The largest vertex id of the graph, or 0 if it has no vertices.
+	 */
+	final int maxId;
+
+	/**
+	 * Copies the edges of a graph.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 */
+	EdgeList310(Graph<GraphNode,GraphEdge> graph) {
+		int m = graph.getEdgeCount();
+		edges = graph.getEdges().toArray(new GraphEdge[m]);
+		first = new int[m];
+		second = new int[m];
+		weights = new int[m];
+		ids = new int[m];
+		CSRGraph310 csr = (graph instanceof CSRGraph310) ? (CSRGraph310)graph : null;
+		for(int e = 0; e < m; e++) {
+			if(csr != null) {
+				//a snapshot lists its edges by index
+				first[e] = csr.vertex(csr.edgeSource(e)).getId();
+				second[e] = csr.vertex(csr.edgeTarget(e)).getId();
+			}
+			else {
+				Pair<GraphNode> ends = graph.getEndpoints(edges[e]);
+				first[e] = ends.getFirst().getId();
+				second[e] = ends.getSecond().getId();
+			}
+			weights[e] = edges[e].getWeight();
+			ids[e] = edges[e].getId();
+		}
+		int max = 0;
+		for(GraphNode v : graph.getVertices())
+			max = Math.max(max, v.getId());
+		maxId = max;
+	}
+
+	/**
+	 * Reports the number of edges.
+	 *
+	 * @return the number of edges
+	 */
+	int size() {
+		return edges.length;
+	}
+}
@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+/**
+ * Orders edges by weight, breaking ties by id, as GraphEdge.compareTo does,
+ * without comparing them. Both keys are ints, so the order is found with
+ * stable distribution passes: first by id, then by weight. A key whose
+ * range is small compared to the number of edges (like the weights 1..20
+ * from the GraphEdge factory) takes one counting sort pass; any other key
+ * takes LSD radix sort passes over its bytes, as many as its range needs.
+ *
+ * <p>Sorting n edges costs O(n + W) time for a weight range W below the
+ * counting limit, and O(n) with at most four passes per key otherwise. The
+ * only allocations are the permutation, one scratch array of n ints and
+ * the bucket counts.
+ */
+class EdgeSort310 {
+
+	/**
+	 * Bits per radix sort digit.
+	 */
+	private static final int DIGIT_BITS = 8;
+
+	/**
+	 * Keys whose range is below this (or below the number of edges) are
+	 * counting sorted in one pass.
+	 */
+	private static final int COUNTING_LIMIT = 1 << 16;
+
+	/**
+	 * Not instantiable: all methods are static.
+	 */
+	private EdgeSort310() {
+	}
+
+	/**
+	 * Sorts the first n edges of an array into GraphEdge.compareTo order.
+	 *
+	 * @param edges the edges, with no nulls among the first n
+	 * @param n the number of edges to sort
+	 */
+	public static void sort(GraphEdge[] edges, int n) {
+		int[] weights = new int[n];
+		int[] ids = new int[n];
+		for(int i = 0; i < n; i++) {
+			weights[i] = edges[i].getWeight();
+			ids[i] = edges[i].getId();
+		}
+		int[] order = order(weights, ids, n);
+		GraphEdge[] sorted = new GraphEdge[n];
+		for(int i = 0; i < n; i++)
+			sorted[i] = edges[order[i]];
+		System.arraycopy(sorted, 0, edges, 0, n);
+	}
+
+	/**
+	 * Finds the order of n edges given by their weights and ids: the
+	 * smallest weight first, and the smaller id first among equal weights.
+	 *
+	 * @param weights the weight of each edge
+	 * @param ids the id of each edge
+	 * @param n the number of edges
+	 * @return a new array listing the edge indexes in order
+	 */
+	public static int[] order(int[] weights, int[] ids, int n) {
+		int[] order = new int[n];
+		for(int i = 0; i < n; i++)
+			order[i] = i;
+		int[] scratch = new int[n];
+
+		//least significant key first; each pass is stable
+		sortBy(ids, order, scratch, n);
+		sortBy(weights, order, scratch, n);
+		return order;
+	}
+
+	/**
+	 * Stably sorts a permutation by one key, leaving it alone if it is
+	 * already in order.
+	 *
+	 * @param key the key of each edge
+	 * @param order the permutation to sort
+	 * @param scratch room for n ints
+	 * @param n the number of edges
+	 */
+	private static void sortBy(int[] key, int[] order, int[] scratch, int n) {
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		boolean sorted = true;
+		for(int i = 0; i < n; i++) {
+			int k = key[order[i]];
+			if(i > 0 && k < key[order[i - 1]])
+				sorted = false;
+			min = Math.min(min, k);
+			max = Math.max(max, k);
+		}
+		if(sorted)
+			return;
+
+		long range = (long)max - min;
+		if(range < Math.max(n, COUNTING_LIMIT)) {
+			countingPass(key, min, 0, -1, (int)range + 1, order, scratch, n);
+			System.arraycopy(scratch, 0, order, 0, n);
+			return;
+		}
+
+		//offsets from min are unsigned and fit in 32 bits
+		int passes = (64 - Long.numberOfLeadingZeros(range) + DIGIT_BITS - 1) / DIGIT_BITS;
+		int[] from = order;
+		int[] to = scratch;
+		for(int p = 0; p < passes; p++) {
+			countingPass(key, min, p * DIGIT_BITS, (1 << DIGIT_BITS) - 1, 1 << DIGIT_BITS, from, to, n);
+			int[] t = from;
+			from = to;
+			to = t;
+		}
+		if(from != order)
+			System.arraycopy(from, 0, order, 0, n);
+	}
+
+	/**
+	 * One stable counting sort pass on a digit of the keys.
+	 *
+	 * @param key the key of each edge
+	 * @param min the smallest key, subtracted before taking digits
+	 * @param shift the position of the digit
+	 * @param mask the bits of the digit
+	 * @param buckets the number of digit values
+	 * @param from the permutation to read
+	 * @param to where to write the sorted permutation
+	 * @param n the number of edges
+	 */
+	private static void countingPass(int[] key, int min, int shift, int mask, int buckets, int[] from, int[] to, int n) {
+		int[] start = new int[buckets + 1];
+		for(int i = 0; i < n; i++)
+			start[(((key[from[i]] - min) >>> shift) & mask) + 1]++;
+		for(int b = 0; b < buckets; b++)
+			start[b + 1] += start[b];
+		for(int i = 0; i < n; i++) {
+			int e = from[i];
+			to[start[((key[e] - min) >>> shift) & mask]++] = e;
+		}
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		//small weights take the counting pass; ids break the ties
+		GraphEdge[] edges = new GraphEdge[200];
+		for(int i = 0; i < edges.length; i++)
+			edges[i] = new GraphEdge((i * 37) % edges.length, 1 + (i * 7) % 20);
+		GraphEdge[] expected = edges.clone();
+		Arrays.sort(expected);
+		sort(edges, edges.length);
+		if(Arrays.equals(edges, expected) && edges[0].getWeight() == 1 && edges[0].getId() < edges[1].getId()) {
+			System.out.println("Yay 1");
+		}
+
+		//weights across the whole int range take radix passes
+		int[] weights = { Integer.MAX_VALUE, -5, Integer.MIN_VALUE, 7, -5, 1 << 20, 7 };
+		int[] ids = { 0, 9, 1, 3, 2, 5, 1 };
+		if(Arrays.toString(order(weights, ids, weights.length)).equals("[2, 4, 1, 6, 3, 5, 0]")) {
+			System.out.println("Yay 2");
+		}
+	}
+}
@@ -0,0 +1,216 @@
+import edu.uci.ics.jung.graph.Graph;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Computes minimum spanning forests with Filter-Kruskal. Instead of sorting
+ * every edge up front, the edges are split around a pivot; the light half
+ * is solved first, and then every heavy edge whose endpoints are already
+ * connected is filtered out before the heavy half is solved. Only small
+ * parts are sorted, with EdgeSort310, and on dense graphs most heavy edges
+ * are filtered away before they would ever be sorted.
+ *
+ * <p>Partitioning and filtering run on parallel streams once a part is
+ * large enough to pay for it; the filter only reads the union-find forest,
+ * which changes only while a sorted part is scanned. Edges are compared in
+ * GraphEdge.compareTo order, so the result is the one Kruskal310 and
+ * MST310 find.
+ */
+class FilterKruskal310 {
+
+	/**
+	 * Parts with at most this many edges are sorted and scanned directly.
+	 */
+	private static final int SORT_LIMIT = 1 << 12;
+
+	/**
+	 * Parts with fewer edges than this are partitioned and filtered sequentially.
+	 */
+	private static final int PARALLEL_LIMIT = 1 << 16;
+
+	/**
+	 * The edges by index.
+	 */
+	private final GraphEdge[] edges;
+
+	/**
+	 * The id of one endpoint of each edge.
+	 */
+	private final int[] first;
+
+	/**
+	 * The id of the other endpoint of each edge.
+	 */
+	private final int[] second;
+
+	/**
+	 * The weight of each edge in the high half, its id in the low half,
+	 * offset so that ids compare as unsigned numbers; no two are equal.
+	 */
+	private final long[] keys;
+
+	/**
+	 * The components joined so far.
+	 */
+	private final UnionFind310 forest;
+
+	/**
+	 * The selected edges, in the order they were chosen.
+	 */
+	private final GraphEdge[] selected;
+
+	/**
+	 * An endpoint id of each selected edge.
+	 */
+	private final int[] selectedEnds;
+
+	/**
+	 * The number of selected edges.
+	 */
+	private int count;
+
+	/**
+	 * Reads a graph into primitive arrays.
+	 *
+	 * @param graph the graph
+	 * @param vertices its vertices
+	 */
+	private FilterKruskal310(Graph<GraphNode,GraphEdge> graph, Collection<GraphNode> vertices) {
+		EdgeList310 list = new EdgeList310(graph);
+		int m = list.size();
+		edges = list.edges;
+		first = list.first;
+		second = list.second;
+		keys = new long[m];
+		for(int e = 0; e < m; e++)
+			keys[e] = ((long)list.weights[e] << 32) | ((list.ids[e] - Integer.MIN_VALUE) & 0xFFFFFFFFL);
+
+		forest = new UnionFind310(list.maxId);
+		for(GraphNode v : vertices)
+			forest.find(v.getId());
+		selected = new GraphEdge[Math.max(0, vertices.size() - 1)];
+		selectedEnds = new int[selected.length];
+	}
+
+	/**
+	 * Computes a minimum spanning forest of a graph: a minimum spanning tree
+	 * of every connected component, the same one Kruskal310 finds. Selected
+	 * edges are reported in GraphEdge.compareTo order. The graph is only
+	 * read, and only by the calling thread.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 * @return the spanning forest
+	 */
+	public static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph) {
+		Collection<GraphNode> vertices = graph.getVertices();
+		FilterKruskal310 run = new FilterKruskal310(graph, vertices);
+		run.solve(IntStream.range(0, run.edges.length).toArray());
+		return new SpanningForest310(run.selected, run.selectedEnds, run.count, run.forest::find, vertices);
+	}
+
+	/**
+	 * Runs Kruskal's algorithm on a part of the edges, all of which are
+	 * heavier than every edge already scanned.
+	 *
+	 * @param part the edge indexes of the part
+	 */
+	private void solve(int[] part) {
+		if(count == selected.length || part.length == 0)
+			return;
+		if(part.length <= SORT_LIMIT) {
+			scan(part);
+			return;
+		}
+
+		//the median of three distinct edges is neither the lightest nor the heaviest
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int third = part.length / 3;
+		long a = keys[part[random.nextInt(third)]];
+		long b = keys[part[third + random.nextInt(third)]];
+		long c = keys[part[2 * third + random.nextInt(part.length - 2 * third)]];
+		long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+		solve(select(part, e -> keys[e] <= pivot));
+		if(count < selected.length) //a finished forest needs no heavy edge at all
+			solve(select(part, e -> keys[e] > pivot && forest.root(first[e]) != forest.root(second[e])));
+	}
+
+	/**
+	 * Picks the edges of a part that pass a test, in parallel for large parts.
+	 *
+	 * @param part the edge indexes
+	 * @param test the test
+	 * @return the indexes that pass
+	 */
+	private static int[] select(int[] part, IntPredicate test) {
+		IntStream stream = IntStream.of(part);
+		if(part.length >= PARALLEL_LIMIT)
+			stream = stream.parallel();
+		return stream.filter(test).toArray();
+	}
+
+	/**
+	 * Sorts a small part and runs Kruskal's scan over it.
+	 *
+	 * @param part the edge indexes
+	 */
+	private void scan(int[] part) {
+		int n = part.length;
+		int[] weights = new int[n];
+		int[] ids = new int[n];
+		for(int i = 0; i < n; i++) {
+			weights[i] = edges[part[i]].getWeight();
+			ids[i] = edges[part[i]].getId();
+		}
+		int[] order = EdgeSort310.order(weights, ids, n);
+		for(int i = 0; i < n && count < selected.length; i++) {
+			int e = part[order[i]];
+			if(forest.union(first[e], second[e])) {
+				selected[count] = edges[e];
+				selectedEnds[count++] = first[e];
+			}
+		}
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		//a complete graph: nearly every heavy edge is filtered before sorting
+		Graph310 graph = new Graph310();
+		GraphNode[] nodes = new GraphNode[200];
+		for(int i = 0; i < nodes.length; i++)
+			nodes[i] = new GraphNode(i);
+		int id = 0;
+		for(int i = 0; i < nodes.length; i++)
+			for(int j = i + 1; j < nodes.length; j++)
+				graph.addEdge(new GraphEdge(id++, 1 + (i * 31 + j * 17) % 50), nodes[i], nodes[j]);
+
+		SpanningForest310 mst = computeMinimumSpanningForest(graph);
+		SpanningForest310 expected = MST310.computeMinimumSpanningForest(graph);
+		if(mst.edges().equals(expected.edges()) && mst.totalWeight() == expected.totalWeight() &&
+			mst.treeCount() == 1 && mst.edges().size() == nodes.length - 1) {
+			System.out.println("Yay 1");
+		}
+
+		//two components and an isolated vertex
+		graph = new Graph310();
+		for(int i = 0; i < 5; i++)
+			graph.addVertex(nodes[i]);
+		graph.addEdge(new GraphEdge(0, 4), nodes[0], nodes[1]);
+		graph.addEdge(new GraphEdge(1, 4), nodes[1], nodes[2]);
+		graph.addEdge(new GraphEdge(2, 1), nodes[0], nodes[2]);
+		graph.addEdge(new GraphEdge(3, 9), nodes[3], nodes[4]);
+		mst = computeMinimumSpanningForest(graph);
+		graph.addVertex(nodes[5]);
+		if(mst.edges().toString().equals("[2:1, 0:4, 3:9]") && mst.treeCount() == 2 &&
+			computeMinimumSpanningForest(graph).treeCount() == 3) {
+			System.out.println("Yay 2");
+		}
+	}
+}
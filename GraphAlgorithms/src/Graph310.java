@@ -6,7 +6,13 @@ import edu.uci.ics.jung.graph.util.EdgeType;
 
 import org.apache.commons.collections15.Factory;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Creates a graph.
@@ -20,16 +26,61 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
     private static final int MAX_NUMBER_OF_NODES = 200;
 	
     /**
-     * The map that stores the graph.
+     * The map that stores the graph: each vertex maps to its neighbours and
+     * the edge to each of them. Both levels are hashed on the component ids,
+     * since lookups far outnumber ordered walks, and a hashed map does not
+     * mind a node's cost changing while the node is in it.
      */
     private Map310<GraphNode,Map310<GraphNode,GraphEdge>> storage;
 	
+    /**
+     * The endpoints of every edge, in ascending order of their ids, so that
+     * an edge can be looked up without searching the adjacency maps. Its
+     * keys are the edge registry of the graph and its size the edge count.
+     */
+    private Map310<GraphEdge,Pair<GraphNode>> endpoints;
+	
+    /**
+     * The vertices by id, so that a BitSet310 of ids can hand back vertices.
+     * Only ids within a small multiple of the vertex count are kept here.
+     */
+    private GraphNode[] vertexById = new GraphNode[16];
+	
+    /**
+     * The number of vertices whose id is too large (or negative) for
+     * vertexById. While it is zero the ids are dense.
+     */
+    private int sparseVertices;
+	
+    /**
+     * The traversal stamp of each vertex in vertexById; a vertex has been
+     * visited when its stamp equals visitEpoch, so starting a traversal
+     * clears every mark at once by moving to the next epoch.
+     */
+    private int[] visitStamps = new int[16];
+	
+    /**
+     * The stamp of the current traversal.
+     */
+    private int visitEpoch;
+	
+    /**
+     * Visited vertices that are not in vertexById.
+     */
+    private Set310<GraphNode> visitedOthers = new Set310<>(true);
+	
+    /**
+     * The queue of the breadth first search, kept between traversals.
+     */
+    private ArrayDeque<GraphNode> frontier = new ArrayDeque<>();
+	
     /**
      * Constructs the graph.
      */
     public Graph310()
     {
-        storage = new Map310<>();
+        storage = new Map310<>(true);
+        endpoints = new Map310<>(true);
     }
 	
 
@@ -40,11 +91,8 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      */
     public Collection<GraphEdge> getEdges()
     {
-		Set310<GraphEdge> set = new Set310<>();		
-        for(Map310<GraphNode,GraphEdge> map : storage.values())
-            for(GraphEdge edge : map.values())
-                set.add(edge);
-        return set;
+		//live view of the edge registry; read-only so edges are not removed from one side only
+		return Collections.unmodifiableCollection(endpoints.keySet());
 		
 	}
     
@@ -55,7 +103,8 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      */
     public Collection<GraphNode> getVertices() {
     
-		return storage.keySet();		
+		//live view of the vertex map; read-only so vertices are not removed without their edges
+		return Collections.unmodifiableCollection(storage.keySet());		
 		
 	}
     
@@ -65,7 +114,7 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      */
     public int getEdgeCount() {
 
-		return getEdges().size();
+		return endpoints.size();
 		
 	}
 
@@ -87,7 +136,7 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      */
     public boolean containsVertex(GraphNode vertex) {
     	
-		return getVertices().contains(vertex);
+		return storage.containsKey(vertex);
 	}
      
 	
@@ -99,9 +148,10 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      */
     public Collection<GraphNode> getNeighbors(GraphNode vertex) {
 
-        if(storage.get(vertex) == null)
+        Map310<GraphNode, GraphEdge> adjacent = storage.get(vertex);
+        if(adjacent == null)
             return null;
-        return storage.get(vertex).keySet(); //default return, remove or change as needed		
+        return Collections.unmodifiableCollection(adjacent.keySet()); //live view, no copy		
 		
 	}
 
@@ -116,9 +166,10 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @return the number of neighboring vertices
      */
     public int getNeighborCount(GraphNode vertex) {
-        if(getNeighbors(vertex) == null)
+        Map310<GraphNode, GraphEdge> adjacent = storage.get(vertex);
+        if(adjacent == null)
             return 0;
-        return getNeighbors(vertex).size(); //default return, remove or change as needed
+        return adjacent.size(); //default return, remove or change as needed
 	}
 
 
@@ -141,10 +192,12 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @see Hypergraph#findEdgeSet(Object, Object) 
      */
     public GraphEdge findEdge(GraphNode v1, GraphNode v2) {
-        if(storage.get(v1) == null || storage.get(v2) == null)
+        //v2 can only be adjacent to v1 if it is in the graph, so one lookup per vertex is enough
+        Map310<GraphNode, GraphEdge> adjacent = storage.get(v1);
+        if(adjacent == null || v2 == null)
             return null;
 
-        GraphEdge edge = storage.get(v1).get(v2);
+        GraphEdge edge = adjacent.get(v2);
 
         return edge; //default return, remove or change as needed   	
 
@@ -158,7 +211,8 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @return True if vertex and edge are incident to each other.
      */
     public boolean isIncident(GraphNode vertex, GraphEdge edge) {
-		return getIncidentEdges(vertex).contains(edge); //default return, remove or change as needed
+        Pair<GraphNode> ends = getEndpoints(edge);
+		return ends != null && (ends.getFirst().equals(vertex) || ends.getSecond().equals(vertex));
 		
 	}
 
@@ -168,59 +222,26 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @return The endpoints (incident vertices) of edge or null if edge is not present.
      */
     public Pair<GraphNode> getEndpoints(GraphEdge edge) {
-        int i = 0;
-        GraphNode[] vertices = new GraphNode[2];
-        for(GraphNode node : storage.keySet())
-        {
-            if(isIncident(node, edge))
-            {
-                vertices[i] = node;
-                i++;
-            }
-            if(i == 2)
-                break;
-        }
-
-        if(i != 2)
-            return null;
-
-        GraphNode v1;
-        GraphNode v2;
-        if(vertices[0].compareTo(vertices[1]) > 0)
-        {
-            v1 = vertices[1];
-            v2 = vertices[0];
-        }
-        else
-        {
-            v1 = vertices[0];
-            v2 = vertices[1];
-        }
-        
-        return new Pair<GraphNode>(v1, v2);
+        //O(1) from the endpoint index, which addEdge fills in already sorted
+        return endpoints.get(edge);
         //NOTE: the two end points must be sorted in ascending order of their IDs.		
 	}
 
 
     /**
      * Returns the collection of edges in this graph which are connected to vertex.
+     * The collection is a read-only view of the vertex's own adjacency map,
+     * so it costs O(1) to get and O(degree) to walk.
      * @param vertex The vertex whose incident edges are to be returned.
      * @return The collection of edges which are connected to vertex, or null if vertex is not present.
      */
     public Collection<GraphEdge> getIncidentEdges(GraphNode vertex) {
-        if(storage.get(vertex) == null)
+        Map310<GraphNode, GraphEdge> adjacent = storage.get(vertex);
+        if(adjacent == null)
             return null;
         
-        Set310<GraphEdge> set = new Set310<>();
-        for(Map310<GraphNode, GraphEdge> map : storage.values())
-        {
-            for(GraphNode node : map.keySet())
-            {
-                if(vertex==node)
-                    set.add(map.get(node));
-            }
-        }
-        return set;
+        //the adjacency map holds exactly the incident edges, one per neighbour
+        return Collections.unmodifiableCollection(adjacent.values());
 	}
 
     /**
@@ -235,14 +256,13 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @see #addEdge(Object, Object, Object, EdgeType)
      */
     public boolean addEdge(GraphEdge e, GraphNode v1, GraphNode v2) {
-        if(v1 == null || v2 == null || e == null || findEdge(v1, v2) != null || getEdges().contains(e) || v1==v2)
+        if(v1 == null || v2 == null || e == null || findEdge(v1, v2) != null || endpoints.containsKey(e) || v1==v2)
             return false;
 
-        addVertex(v1);
-        addVertex(v2);
-
-        storage.get(v1).put(v2, e);
-        storage.get(v2).put(v1, e);
+        //adds missing vertices and links the edge with one lookup per endpoint
+        storage.computeIfAbsent(v1, this::newAdjacency).put(v2, e);
+        storage.computeIfAbsent(v2, this::newAdjacency).put(v1, e);
+        endpoints.put(e, (v1.getId() <= v2.getId()) ? new Pair<>(v1, v2) : new Pair<>(v2, v1));
 
 	    return true;		
 	}
@@ -261,11 +281,29 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
 		if(storage.containsKey(vertex))
             return false;
 
-        storage.put(vertex, new Map310<>());
+        storage.put(vertex, newAdjacency(vertex));
 
 		return true;
 	}
 
+    /**
+     * Registers the id of a vertex being added and creates its empty adjacency map.
+     * @param vertex The vertex being added.
+     * @return The adjacency map of the vertex.
+     */
+    private Map310<GraphNode,GraphEdge> newAdjacency(GraphNode vertex) {
+        int id = vertex.getId();
+        if(id >= 0 && id < 4 * (storage.size() + 16))
+        {
+            if(id >= vertexById.length)
+                vertexById = Arrays.copyOf(vertexById, Math.max(id + 1, 2 * vertexById.length));
+            vertexById[id] = vertex;
+        }
+        else
+            sparseVertices++;
+        return new Map310<>(true);
+    }
+
     /**
      * Removes edge from this graph.
      * Fails if edge is null, or is otherwise not an element of this graph.
@@ -273,10 +311,9 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @return True if the removal is successful, false otherwise.
      */
     public boolean removeEdge(GraphEdge edge) {
-        if(edge == null || !getEdges().contains(edge))
+        Pair<GraphNode> vertices = endpoints.remove(edge);
+        if(vertices == null)
             return false;
-        
-        Pair<GraphNode> vertices = getEndpoints(edge);
 
         storage.get(vertices.getFirst()).remove(vertices.getSecond());
         storage.get(vertices.getSecond()).remove(vertices.getFirst());
@@ -296,49 +333,155 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @return True if the removal is successful, false otherwise.
      */
     public boolean removeVertex(GraphNode vertex) {
-        if(vertex == null || !storage.containsKey(vertex))
+        Map310<GraphNode, GraphEdge> adjacent = (vertex == null) ? null : storage.remove(vertex);
+        if(adjacent == null)
             return false;
         
-        for(GraphEdge edge : getIncidentEdges(vertex))
-            removeEdge(edge);
-        
-        storage.remove(vertex);
+        //O(degree): unlink each neighbour's side and drop the edge from the index
+        for(Map.Entry<GraphNode, GraphEdge> link : adjacent.entrySet())
+        {
+            storage.get(link.getKey()).remove(vertex);
+            endpoints.remove(link.getValue());
+        }
+
+        int id = vertex.getId();
+        if(id >= 0 && id < vertexById.length && vertexById[id] != null)
+            vertexById[id] = null;
+        else
+            sparseVertices--;
 
 	    return true;
 	}
 		
 	
+	/**
+	 *  Takes an immutable compressed sparse row snapshot of this graph, for
+	 *  algorithms that want to walk primitive arrays. Later changes to this
+	 *  graph do not show in the snapshot.
+	 *  @return A snapshot of this graph.
+	 */
+	public CSRGraph310 snapshot() {
+        return new CSRGraph310(this);
+	}
+	
 	/**
 	 *  Report a set of graph nodes that are reachable from the given vertex. 
 	 *  Do not include vertex itself in the set.
 	 *  No particular order is required (hence a set).
+	 *  While vertex ids are dense the search marks one bit per id in a
+	 *  BitSet310, which is then detached: the nodes found are copied into an
+	 *  array of just their number, so later changes to the graph do not show
+	 *  in the set. Otherwise the set is a hashed Set310, which keeps its
+	 *  nodes anyway.
      * @param vertex The vertex to get the reachables from.
 	 *  @return A set of graph nodes that are reachable from vertex, or an empty set if none return null if vertex is not present.
 	 */
-	public Set310<GraphNode> reachableSet(GraphNode vertex) {
+	public Set<GraphNode> reachableSet(GraphNode vertex) {
         if(vertex == null || !storage.containsKey(vertex))
             return null;
-        Set310<GraphNode> set = new Set310<>();
-        getReachables(vertex, set);
+        if(sparseVertices == 0) {
+            BitSet310<GraphNode> bits = new BitSet310<>(id -> vertexById[id], vertexById.length - 1);
+            breadthFirst(vertex, bits::add);
+            bits.remove(vertex);
+            return bits.detach();
+        }
+        Set<GraphNode> set = new Set310<>(true);
+        breadthFirst(vertex, set::add);
         set.remove(vertex);
         return set;
 	}
 
     /**
-     * A recursive helper method that gets all the noes that is reachable form node.
-     * @param node The node that we get all the reachables from.
-     * @param set The set that we add the reachables from.
+     * Visits every vertex reachable from source, source included, in breadth
+     * first order. The visited marks and the queue are kept by the graph and
+     * reused, so a traversal allocates nothing once they have grown; for the
+     * same reason the action must not start another traversal of this graph
+     * or change it.
+     * @param source The vertex to start from.
+     * @param action Called on each vertex as it is taken off the queue.
+     * @return The number of vertices visited, 0 if source is not present.
      */
-    private void getReachables(GraphNode node, Set310<GraphNode> set)
-    {
-        if(set.contains(node))
-            return;
-        
-        set.add(node);
-        for(GraphNode neighbor: getNeighbors(node))
+    public int breadthFirst(GraphNode source, Consumer<? super GraphNode> action) {
+        if(source == null || !storage.containsKey(source))
+            return 0;
+        startTraversal();
+        visit(source);
+        return spread(source, action);
+    }
+
+    /**
+     * Labels every vertex with its connected component in one breadth first
+     * pass over the whole graph, O(V+E).
+     * @return The components of this graph.
+     */
+    public Components310 connectedComponents() {
+        Components310 components = new Components310(vertexById.length);
+        startTraversal();
+        for(GraphNode vertex : storage.keySet())
         {
-            getReachables(neighbor, set);
+            if(visit(vertex))
+            {
+                components.newComponent();
+                spread(vertex, components::add);
+            }
         }
+        return components;
+    }
+
+    /**
+     * Clears the visited marks for a new traversal.
+     */
+    private void startTraversal() {
+        if(visitStamps.length < vertexById.length)
+            visitStamps = Arrays.copyOf(visitStamps, vertexById.length);
+        if(++visitEpoch == 0)
+        {
+            //the stamps wrapped around; old marks could look current
+            Arrays.fill(visitStamps, 0);
+            visitEpoch = 1;
+        }
+        if(!visitedOthers.isEmpty())
+            visitedOthers.clear();
+    }
+
+    /**
+     * Marks a vertex as visited.
+     * @param vertex The vertex.
+     * @return True if it had not been visited in this traversal.
+     */
+    private boolean visit(GraphNode vertex) {
+        int id = vertex.getId();
+        if(id >= 0 && id < vertexById.length && vertexById[id] != null)
+        {
+            if(visitStamps[id] == visitEpoch)
+                return false;
+            visitStamps[id] = visitEpoch;
+            return true;
+        }
+        return visitedOthers.add(vertex);
+    }
+
+    /**
+     * The breadth first search behind breadthFirst and connectedComponents.
+     * @param source The vertex to start from, already marked as visited.
+     * @param action Called on each vertex as it is taken off the queue.
+     * @return The number of vertices visited.
+     */
+    private int spread(GraphNode source, Consumer<? super GraphNode> action) {
+        int count = 0;
+        frontier.add(source);
+        while(!frontier.isEmpty())
+        {
+            GraphNode current = frontier.poll();
+            action.accept(current);
+            count++;
+            for(GraphNode neighbor : storage.get(current).keySet())
+            {
+                if(visit(neighbor))
+                    frontier.add(neighbor);
+            }
+        }
+        return count;
     }
 	
 	/**
@@ -431,7 +574,7 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
 		
 		
 		
-		Set310<GraphNode> reachable = graph.reachableSet(nodes[1]);
+		Set<GraphNode> reachable = graph.reachableSet(nodes[1]);
 		if (reachable.size()==7){
 			System.out.println("Yay 4");				
 		}
@@ -443,8 +586,60 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
 		}
 		System.out.println();
 		
+		//dense ids give a bitset; one far-away id switches to a hashed set until it leaves
+		GraphNode far = new GraphNode(1000000);
+		graph.addEdge(new GraphEdge(8), nodes[5], far);
+		Set<GraphNode> sparse = graph.reachableSet(nodes[5]);
+		graph.removeVertex(far);
+		if (reachable instanceof BitSet310 && sparse instanceof Set310 && sparse.contains(far) &&
+			sparse.size() == 1 && graph.reachableSet(nodes[5]) instanceof BitSet310) {
+			System.out.println("Yay 5");
+		}
+		
+		//endpoints come from the edge index, smaller id first
+		GraphEdge extra = new GraphEdge(9);
+		graph.addEdge(extra, nodes[9], nodes[4]);
+		Pair<GraphNode> extraEnds = graph.getEndpoints(extra);
+		if (extraEnds.getFirst() == nodes[4] && extraEnds.getSecond() == nodes[9] &&
+			graph.getOpposite(nodes[9], extra) == nodes[4] && graph.isIncident(nodes[4], extra) &&
+			!graph.isIncident(nodes[1], extra) && graph.removeEdge(extra) && !graph.containsEdge(extra) &&
+			graph.getEndpoints(extra) == null && !graph.removeEdge(extra) && graph.containsEdge(edges[0])) {
+			System.out.println("Yay 6");
+		}
+		
+		//incident edges are a live view of the vertex's adjacency
+		Collection<GraphEdge> around0 = graph.getIncidentEdges(nodes[0]);
+		int before = around0.size();
+		graph.removeVertex(nodes[1]);
+		if (before == 2 && around0.size() == 1 && around0.contains(edges[5]) && graph.getEdgeCount() == 5 &&
+			graph.degree(nodes[2]) == 1 && !graph.containsEdge(edges[7]) && graph.getEndpoints(edges[1]) == null) {
+			System.out.println("Yay 7");
+		}
+		
+		
+		//components left: {0,9,8}, {2,7,6,3}, {4} and {5}
+		Components310 parts = graph.connectedComponents();
+		StringBuilder order = new StringBuilder();
+		int seen = graph.breadthFirst(nodes[0], n -> order.append(n).append(' '));
+		if (parts.count() == 4 && parts.connected(nodes[2], nodes[3]) && !parts.connected(nodes[9], nodes[2]) &&
+			parts.size(parts.componentOf(nodes[6])) == 4 && parts.size(parts.componentOf(nodes[5])) == 1 &&
+			parts.componentOf(nodes[1]) == -1 && seen == 3 && order.toString().equals("0 9 8 ")) {
+			System.out.println("Yay 8");
+		}
+		
+		//the reachable set from earlier still holds its nodes after one leaves and its id is reused
+		GraphNode old2 = nodes[2];
+		graph.removeVertex(old2);
+		graph.addVertex(new GraphNode(2));
+		boolean same = false;
+		for (GraphNode n: reachable){
+			same |= (n == old2);
+		}
+		if (same && reachable.size() == 7 && reachable.contains(old2) && reachable.toString().startsWith("[0, 2, ")) {
+			System.out.println("Yay 9");
+		}
 		
-		//lots more testing here...
+				//lots more testing here...
 		
 		
 		//If your graph "looks funny" you probably want to check:
@@ -625,7 +820,7 @@ class Graph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,
      * @return True iff this graph contains an edge edge.
      */
     public boolean containsEdge(GraphEdge edge) {
-		return (getEndpoints(edge) != null);
+		return endpoints.containsKey(edge);
 	}
     
     /**
@@ -64,9 +64,9 @@ class GraphEdge extends GraphComp {
 		}
 		GraphEdge edge = (GraphEdge) e;
 		if (this.weight!=edge.weight)
-			return this.weight - edge.weight;
+			return Integer.compare(this.weight, edge.weight); //subtracting could overflow
 		else
-			return this.id-e.id; //use id to break the tie
+			return Integer.compare(this.id, e.id); //use id to break the tie
 	}
 
 
@@ -0,0 +1,528 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Implements an open-addressing hash table of elements looked up by a key
+ * taken from each element (the element itself for a set, the key of a
+ * pair for a map). Keys are matched with hashCode and equals.
+ *
+ * <p>Collisions are resolved by linear probing and removals shift the
+ * rest of the cluster back, so there are no tombstones. The home slot of a
+ * key comes from Fibonacci hashing of its hash code, so keys with a common
+ * stride, such as ids that are all multiples of the table size, still land
+ * in different slots instead of in one long cluster. Iteration follows the
+ * slots and so is in no useful order.
+ *
+ * <p>Ordered access is not what the table is for, but when it is asked for
+ * a sorted snapshot tree is built from the table and kept until the next
+ * change, so that repeated ordered queries only pay for the sort once.
+ * The snapshot assumes that the order of the elements does not change
+ * while they are in the table.
+ *
+ * @param <K> the type of keys
+ * @param <T> the type of elements
+ */
+class Hash310<K, T extends Comparable<? super T>> implements Iterable<T> {
+
+	/**
+	 * Number of slots of a new table (a power of two).
+	 */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * Extracts the key of an element.
+	 */
+	private final Function<? super T, ? extends K> keyOf;
+
+	/**
+	 * The slots; null marks an empty slot.
+	 */
+	private Object[] table;
+
+	/**
+	 * How far a mixed hash code is shifted right to give a slot: 32 minus
+	 * the log of the number of slots.
+	 */
+	private int shift;
+
+	/**
+	 * Number of elements in the table.
+	 */
+	private int size;
+
+	/**
+	 * Number of structural modifications, used by iterators to fail fast
+	 * and to tell whether the sorted snapshot is stale.
+	 */
+	private int modCount;
+
+	/**
+	 * Sorted copy of the elements, or null if none was asked for yet.
+	 */
+	private WeissBST<T> sorted;
+
+	/**
+	 * Value of modCount when the sorted copy was built.
+	 */
+	private int sortedModCount;
+
+	/**
+	 * Constructs an empty table.
+	 *
+	 * @param keyOf extracts the key of an element
+	 */
+	public Hash310(Function<? super T, ? extends K> keyOf) {
+		this.keyOf = keyOf;
+		table = new Object[INITIAL_CAPACITY];
+		shift = Integer.numberOfLeadingZeros(INITIAL_CAPACITY - 1);
+	}
+
+	/**
+	 * Reports the number of elements in the table.
+	 *
+	 * @return the number of elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the element with the given key.
+	 *
+	 * @param key the key to look up
+	 * @return the element with that key, or null if there is none
+	 */
+	public T find(Object key) {
+		int i = indexOf(key);
+		return (i < 0) ? null : element(i);
+	}
+
+	/**
+	 * Finds the element with the given key, or inserts a new one if there
+	 * is none, with a single probe sequence.
+	 *
+	 * @param key the key to look up
+	 * @param factory creates the element to insert for a missing key
+	 * @return the element found or inserted
+	 */
+	public T findOrInsert(K key, Function<? super K, ? extends T> factory) {
+		int mask = table.length - 1;
+		int i = home(key);
+		Object o;
+		while((o = table[i]) != null) {
+			@SuppressWarnings("unchecked")
+			T t = (T) o;
+			if(key.equals(keyOf.apply(t)))
+				return t;
+			i = (i + 1) & mask;
+		}
+		T x = factory.apply(key);
+		table[i] = x;
+		grown();
+		return x;
+	}
+
+	/**
+	 * Inserts an element unless one with the same key is present.
+	 *
+	 * @param x the element to insert
+	 * @return true if x was inserted
+	 */
+	public boolean add(T x) {
+		K key = keyOf.apply(x);
+		int mask = table.length - 1;
+		int i = home(key);
+		Object o;
+		while((o = table[i]) != null) {
+			@SuppressWarnings("unchecked")
+			T t = (T) o;
+			if(key.equals(keyOf.apply(t)))
+				return false;
+			i = (i + 1) & mask;
+		}
+		table[i] = x;
+		grown();
+		return true;
+	}
+
+	/**
+	 * Removes the element with the given key.
+	 *
+	 * @param key the key of the element to remove
+	 * @return the removed element, or null if there was none
+	 */
+	public T remove(Object key) {
+		int i = indexOf(key);
+		if(i < 0)
+			return null;
+		T x = element(i);
+		delete(i);
+		return x;
+	}
+
+	/**
+	 * Removes all elements, keeping the current capacity.
+	 */
+	public void makeEmpty() {
+		if(size == 0)
+			return;
+		Arrays.fill(table, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the elements sorted, as a balanced tree. The tree is rebuilt
+	 * only if the table changed since the last call, and it is a fresh
+	 * tree each time, so iterators over an older copy stay valid.
+	 * The returned tree must not be modified.
+	 *
+	 * @return a sorted snapshot of the elements
+	 */
+	@SuppressWarnings("unchecked")
+	public WeissBST<T> sorted() {
+		if(sorted == null || sortedModCount != modCount) {
+			//T erases to Comparable, so the array must really be a Comparable[]
+			T[] items = (T[]) new Comparable<?>[size];
+			int n = 0;
+			for(Object o : table) {
+				if(o != null)
+					items[n++] = (T) o;
+			}
+			sorted = new WeissBST<>(true);
+			sorted.build(items, WeissBST.sortDistinct(items, n));
+			sortedModCount = modCount;
+		}
+		return sorted;
+	}
+
+	/**
+	 * Returns an iterator over the elements in table order.
+	 *
+	 * @return an iterator over the elements
+	 */
+	public Iterator<T> iterator() {
+		return new TableIterator();
+	}
+
+	/**
+	 * Returns an iterator over the sorted elements between two bounds.
+	 * Removing through the iterator removes from the table.
+	 *
+	 * @param lo the lowest element, or null if unbounded below
+	 * @param loInclusive whether an element equal to lo is included
+	 * @param hi the highest element, or null if unbounded above
+	 * @param hiInclusive whether an element equal to hi is included
+	 * @param descending whether to iterate from highest to lowest
+	 * @return an iterator over the elements in range
+	 */
+	public Iterator<T> iterator(T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending) {
+		return new SortedIterator(sorted().iterator(lo, loInclusive, hi, hiInclusive, descending));
+	}
+
+	/**
+	 * Finds the home slot of a key. The hash code is multiplied by 2^32
+	 * over the golden ratio and the slot is read from the top bits of the
+	 * product, which depend on every bit of the hash code.
+	 *
+	 * @param key the key
+	 * @return the slot where the probe sequence of the key starts
+	 */
+	private int home(Object key) {
+		return (key.hashCode() * 0x9E3779B9) >>> shift;
+	}
+
+	/**
+	 * Finds the slot of a key.
+	 *
+	 * @param key the key to look up
+	 * @return the slot holding the key, or -1 if it is absent
+	 */
+	private int indexOf(Object key) {
+		if(key == null)
+			return -1;
+		int mask = table.length - 1;
+		int i = home(key);
+		while(table[i] != null) {
+			if(key.equals(keyOf.apply(element(i))))
+				return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Reads a slot.
+	 *
+	 * @param i the slot
+	 * @return the element in the slot, or null if it is empty
+	 */
+	@SuppressWarnings("unchecked")
+	private T element(int i) {
+		return (T) table[i];
+	}
+
+	/**
+	 * Accounts for an element just placed in an empty slot, and doubles
+	 * the table once it is half full.
+	 */
+	private void grown() {
+		size++;
+		modCount++;
+		if(2 * size > table.length)
+			resize(2 * table.length);
+	}
+
+	/**
+	 * Moves all elements into a table with the given number of slots.
+	 *
+	 * @param capacity the new number of slots (a power of two)
+	 */
+	private void resize(int capacity) {
+		Object[] old = table;
+		table = new Object[capacity];
+		shift = Integer.numberOfLeadingZeros(capacity - 1);
+		int mask = capacity - 1;
+		for(Object o : old) {
+			if(o == null)
+				continue;
+			@SuppressWarnings("unchecked")
+			T t = (T) o;
+			int i = home(keyOf.apply(t));
+			while(table[i] != null)
+				i = (i + 1) & mask;
+			table[i] = o;
+		}
+	}
+
+	/**
+	 * Empties a slot and shifts back the elements of the cluster after it
+	 * that can no longer be reached from their home slot. Elements only
+	 * ever move to an earlier slot of the same cluster.
+	 *
+	 * @param hole the slot to empty
+	 */
+	private void delete(int hole) {
+		int mask = table.length - 1;
+		int i = (hole + 1) & mask;
+		Object o;
+		while((o = table[i]) != null) {
+			int home = home(keyOf.apply(element(i)));
+			//move the element unless its home lies cyclically in (hole, i]
+			if(((i - home) & mask) >= ((i - hole) & mask)) {
+				table[hole] = o;
+				hole = i;
+			}
+			i = (i + 1) & mask;
+		}
+		table[hole] = null;
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Iterator over the slots of the table. It starts just after an empty
+	 * slot so that no cluster wraps around the end of the iteration; a
+	 * removal then only moves elements not yet visited into the slot just
+	 * emptied, which is visited again.
+	 */
+	private class TableIterator implements Iterator<T> {
+
+		/**
+		 * First slot of the iteration.
+		 */
+		private final int start;
+
+		/**
+		 * Number of slots examined so far.
+		 */
+		private int offset;
+
+		/**
+		 * Slot of the element last returned, or -1 if none or removed.
+		 */
+		private int last = -1;
+
+		/**
+		 * Value of modCount the iterator expects.
+		 */
+		private int expectedModCount = modCount;
+
+		/**
+		 * Constructs an iterator at the first slot after an empty one.
+		 */
+		TableIterator() {
+			int mask = table.length - 1;
+			int s = mask;
+			while(table[s] != null)
+				s--;
+			start = (s + 1) & mask;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean hasNext() {
+			int mask = table.length - 1;
+			while(offset < table.length && table[(start + offset) & mask] == null)
+				offset++;
+			return offset < table.length;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public T next() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(!hasNext())
+				throw new NoSuchElementException();
+			last = (start + offset++) & (table.length - 1);
+			return element(last);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void remove() {
+			if(last < 0)
+				throw new IllegalStateException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			delete(last);
+			expectedModCount = modCount;
+			//an element from later in the cluster may have moved into the slot
+			offset--;
+			last = -1;
+		}
+	}
+
+	/**
+	 * Iterator over a sorted snapshot that removes from the table.
+	 */
+	private class SortedIterator implements Iterator<T> {
+
+		/**
+		 * Iterator over the snapshot tree.
+		 */
+		private final Iterator<T> it;
+
+		/**
+		 * The element last returned, or null if none or removed.
+		 */
+		private T last;
+
+		/**
+		 * Value of modCount the iterator expects.
+		 */
+		private int expectedModCount = modCount;
+
+		/**
+		 * Constructs an iterator over a snapshot.
+		 *
+		 * @param it the iterator over the snapshot tree
+		 */
+		SortedIterator(Iterator<T> it) {
+			this.it = it;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public T next() {
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			return last = it.next();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void remove() {
+			if(last == null)
+				throw new IllegalStateException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			Hash310.this.remove(keyOf.apply(last));
+			expectedModCount = modCount;
+			last = null;
+		}
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		Hash310<Integer, Integer> table = new Hash310<>(Function.identity());
+		for(int i = 0; i < 10; i++)
+			table.add(i);
+
+		if(table.size() == 10 && !table.add(3) && table.find(7) == 7 && table.find(10) == null) {
+			System.out.println("Yay 1");
+		}
+
+		//iteration visits every key once, in table order
+		int sum = 0;
+		int count = 0;
+		for(Integer i : table) {
+			sum += i;
+			count++;
+		}
+		if(sum == 45 && count == 10) {
+			System.out.println("Yay 2");
+		}
+
+		//1, 17 and 33 agree in their low bits but not in their slots
+		table.add(17);
+		table.add(33);
+		if(table.remove(1) == 1 && table.find(17) == 17 && table.find(33) == 33 && table.remove(1) == null) {
+			System.out.println("Yay 3");
+		}
+
+		//removing while iterating visits everything exactly once
+		int seen = 0;
+		for(Iterator<Integer> it = table.iterator(); it.hasNext(); ) {
+			if(it.next() % 2 == 1)
+				it.remove();
+			seen++;
+		}
+		if(seen == 11 && table.size() == 5 && table.find(17) == null && table.find(4) == 4) {
+			System.out.println("Yay 4");
+		}
+
+		//ordered access through the snapshot
+		Iterator<Integer> desc = table.iterator(null, false, 6, true, true);
+		if(table.sorted().findMax() == 8 && desc.next() == 6 && desc.next() == 4) {
+			desc.remove();
+			if(table.find(4) == null && desc.next() == 2 && table.sorted().toString().equals("0 2 6 8 ")) {
+				System.out.println("Yay 5");
+			}
+		}
+
+		//keys that are all multiples of the table size still spread out
+		Hash310<Integer, Integer> strided = new Hash310<>(Function.identity());
+		for(int i = 0; i < 1000; i++)
+			strided.add(2048 * i);
+		int mask = strided.table.length - 1;
+		int probes = 0;
+		for(int i = 0; i <= mask; i++)
+			if(strided.table[i] != null)
+				probes += (i - strided.home(strided.element(i))) & mask;
+		if(strided.table.length == 2048 && probes < 1000 && strided.remove(2048 * 500) == 2048 * 500 &&
+			strided.find(2048 * 999) == 2048 * 999 && strided.size() == 999) {
+			System.out.println("Yay 6");
+		}
+	}
+}
@@ -0,0 +1,319 @@
+import java.util.Arrays;
+
+/**
+ * An indexed d-ary min-heap of the ints 0..capacity-1, each with a long
+ * key. Because the heap knows where every item sits, a key can be lowered
+ * in place (decrease-key) instead of inserting a second copy, so the heap
+ * never holds more than capacity items and Prim310 needs no stale-entry
+ * checks.
+ *
+ * <p>A wider node makes the heap shallower: decrease-key, the common
+ * operation in Prim's algorithm, costs O(log_d n) and removeMin costs
+ * O(d log_d n). Everything lives in three int/long arrays allocated up
+ * front, so no operation allocates.
+ */
+class IndexedHeap310 {
+
+	/**
+	 * The items in heap order; the children of slot i are d*i+1 .. d*i+d.
+	 */
+	private final int[] heap;
+
+	/**
+	 * The slot of each item, or -1 if it is not in the heap.
+	 */
+	private final int[] position;
+
+	/**
+	 * The key of each item in the heap.
+	 */
+	private final long[] keys;
+
+	/**
+	 * The number of children per node.
+	 */
+	private final int arity;
+
+	/**
+	 * The number of items in the heap.
+	 */
+	private int size;
+
+	/**
+	 * Makes an empty heap.
+	 *
+	 * @param capacity one more than the largest item
+	 * @param arity the number of children per node, at least 2
+	 * @throws IllegalArgumentException if the capacity is negative or the arity below 2
+	 */
+	public IndexedHeap310(int capacity, int arity) {
+		if(capacity < 0 || arity < 2)
+			throw new IllegalArgumentException("Capacity " + capacity + ", arity " + arity);
+		heap = new int[capacity];
+		position = new int[capacity];
+		Arrays.fill(position, -1);
+		keys = new long[capacity];
+		this.arity = arity;
+	}
+
+	/**
+	 * Reports whether an item is in the heap.
+	 *
+	 * @param item the item
+	 * @return true if the item is in the heap
+	 */
+	public boolean contains(int item) {
+		return item >= 0 && item < position.length && position[item] >= 0;
+	}
+
+	/**
+	 * Reports the key of an item in the heap.
+	 *
+	 * @param item the item
+	 * @return its key
+	 * @throws IllegalArgumentException if the item is not in the heap
+	 */
+	public long keyOf(int item) {
+		check(item, true);
+		return keys[item];
+	}
+
+	/**
+	 * Adds an item.
+	 *
+	 * @param item the item, not already in the heap
+	 * @param key its key
+	 * @throws IllegalArgumentException if the item is out of range or already in the heap
+	 */
+	public void insert(int item, long key) {
+		check(item, false);
+		keys[item] = key;
+		heap[size] = item;
+		position[item] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Lowers the key of an item in the heap.
+	 *
+	 * @param item the item
+	 * @param key the new key, not larger than the old one
+	 * @throws IllegalArgumentException if the item is not in the heap or the key would grow
+	 */
+	public void decreaseKey(int item, long key) {
+		check(item, true);
+		if(key > keys[item])
+			throw new IllegalArgumentException("Key of " + item + " would grow");
+		keys[item] = key;
+		siftUp(position[item]);
+	}
+
+	/**
+	 * Finds the item with the smallest key.
+	 *
+	 * @return the item, or -1 if the heap is empty
+	 */
+	public int findMin() {
+		return isEmpty() ? -1 : heap[0];
+	}
+
+	/**
+	 * Removes the item with the smallest key.
+	 *
+	 * @return the item
+	 * @throws IllegalArgumentException if the heap is empty
+	 */
+	public int removeMin() {
+		if(isEmpty())
+			throw new IllegalArgumentException("Min Item Not Found");
+		int min = heap[0];
+		position[min] = -1;
+		if(--size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Reports whether the heap is empty.
+	 *
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Reports the number of items in the heap.
+	 *
+	 * @return the number of items
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every item, in time proportional to the number removed.
+	 */
+	public void clear() {
+		for(int i = 0; i < size; i++)
+			position[heap[i]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Lists the items in key order, ties by item, separated by spaces. This
+	 * sorts a copy of the whole heap; displays that repaint often should use
+	 * smallest instead.
+	 *
+	 * @return the items in key order
+	 */
+	public String toString() {
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++)
+			order[i] = heap[i];
+		Arrays.sort(order, (a, b) -> (keys[a] != keys[b]) ? Long.compare(keys[a], keys[b]) : Integer.compare(a, b));
+		StringBuilder result = new StringBuilder();
+		for(int item : order)
+			result.append(item).append(' ');
+		return result.toString();
+	}
+
+	/**
+	 * Lists the items with the smallest keys in key order, with "..." after
+	 * them if more remain; equal keys come in no set order. Only the top of
+	 * the heap is visited, so this costs O(d count^2) however many items the
+	 * heap holds, which makes it cheap enough to call on every repaint.
+	 *
+	 * @param count the most items to list
+	 * @return the items with the smallest keys
+	 */
+	public String smallest(int count) {
+		//the next smallest item is always a child of one already listed
+		int[] candidates = new int[count * arity + 1];
+		int live = 0;
+		if(count > 0 && !isEmpty())
+			candidates[live++] = 0;
+
+		StringBuilder result = new StringBuilder();
+		int listed = 0;
+		while(live > 0 && listed < count) {
+			int best = 0;
+			for(int i = 1; i < live; i++)
+				if(keys[heap[candidates[i]]] < keys[heap[candidates[best]]])
+					best = i;
+			int slot = candidates[best];
+			candidates[best] = candidates[--live];
+			result.append(heap[slot]).append(' ');
+			listed++;
+			for(int child = arity * slot + 1; child <= arity * slot + arity && child < size; child++)
+				candidates[live++] = child;
+		}
+		if(listed < size)
+			result.append("...");
+		return result.toString();
+	}
+
+	/**
+	 * Checks an item before it is used.
+	 *
+	 * @param item the item
+	 * @param present whether the item must be in the heap (or must not be)
+	 */
+	private void check(int item, boolean present) {
+		if(item < 0 || item >= position.length)
+			throw new IllegalArgumentException("Item out of range: " + item);
+		if(present != (position[item] >= 0))
+			throw new IllegalArgumentException("Item " + item + (present ? " not" : " already") + " in heap");
+	}
+
+	/**
+	 * Moves the item in a slot up until its parent's key is not larger.
+	 *
+	 * @param hole the slot
+	 */
+	private void siftUp(int hole) {
+		int item = heap[hole];
+		long key = keys[item];
+		while(hole > 0) {
+			int parent = (hole - 1) / arity;
+			if(keys[heap[parent]] <= key)
+				break;
+			heap[hole] = heap[parent];
+			position[heap[hole]] = hole;
+			hole = parent;
+		}
+		heap[hole] = item;
+		position[item] = hole;
+	}
+
+	/**
+	 * Moves the item in a slot down until no child has a smaller key.
+	 *
+	 * @param hole the slot
+	 */
+	private void siftDown(int hole) {
+		int item = heap[hole];
+		long key = keys[item];
+		while(true) {
+			int first = arity * hole + 1;
+			if(first >= size)
+				break;
+			int last = Math.min(first + arity, size);
+			int child = first;
+			for(int c = first + 1; c < last; c++)
+				if(keys[heap[c]] < keys[heap[child]])
+					child = c;
+			if(keys[heap[child]] >= key)
+				break;
+			heap[hole] = heap[child];
+			position[heap[hole]] = hole;
+			hole = child;
+		}
+		heap[hole] = item;
+		position[item] = hole;
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		IndexedHeap310 heap = new IndexedHeap310(100, 4);
+		for(int i = 0; i < 100; i++)
+			heap.insert(i, 1000 + (i * 37) % 100);
+		heap.decreaseKey(99, 5);
+		heap.decreaseKey(42, 7);
+		boolean ordered = heap.removeMin() == 99 && heap.removeMin() == 42;
+		long last = Long.MIN_VALUE;
+		for(int i = 0; i < 50; i++) {
+			int item = heap.findMin();
+			ordered &= heap.keyOf(item) >= last;
+			last = heap.keyOf(item);
+			ordered &= heap.removeMin() == item && !heap.contains(item);
+		}
+		if(ordered && heap.size() == 48 && heap.contains(1) == (1037 > last)) {
+			System.out.println("Yay 1");
+		}
+
+		heap.clear();
+		heap.insert(3, 9);
+		heap.insert(1, 4);
+		heap.insert(2, 4);
+		boolean refused = false;
+		try {
+			heap.decreaseKey(3, 10);
+		}
+		catch(IllegalArgumentException e) {
+			refused = true;
+		}
+		if(refused && heap.toString().equals("1 2 3 ") && heap.smallest(2).equals("1 2 ...") &&
+			heap.smallest(5).equals(heap.toString()) && heap.size() == 3 && !heap.contains(0) &&
+			new IndexedHeap310(0, 2).findMin() == -1) {
+			System.out.println("Yay 2");
+		}
+	}
+}
@@ -0,0 +1,1195 @@
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+
+import edu.uci.ics.jung.graph.util.Pair;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+import org.apache.commons.collections15.Factory;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * An undirected graph kept in growable primitive arrays, for graphs too
+ * large for the nested maps of Graph310. Every vertex and edge gets a small
+ * internal index; the adjacency of a vertex is one int array of
+ * (neighbour index, edge index) pairs, and the endpoints of every edge sit
+ * in two flat int arrays. Indexes freed by removals are reused.
+ *
+ * <p>An edge costs about 32 bytes here (two adjacency pairs, two
+ * endpoints, its reference and its id entry) plus the slack of array
+ * doubling, against several map entries and table slots in Graph310.
+ * Ids are mapped to indexes by an array while they are dense, as they are
+ * from the GraphNode and GraphEdge factories.
+ *
+ * <p>It behaves like Graph310 through the JUNG interface and can stand in
+ * for it through getFactory(). The one trade-off is that finding the edge
+ * between two vertices walks the adjacency of the one with fewer neighbours.
+ */
+class IntGraph310 implements Graph<GraphNode,GraphEdge>, UndirectedGraph<GraphNode,GraphEdge>
+{
+	/**
+	 * Shared adjacency of vertices without neighbours.
+	 */
+	private static final int[] NO_LINKS = new int[0];
+
+	/**
+	 * The vertices by index; null where an index is free.
+	 */
+	private GraphNode[] vertices = new GraphNode[16];
+
+	/**
+	 * The adjacency of each vertex: neighbour index at 2i, edge index at 2i+1.
+	 */
+	private int[][] links = new int[16][];
+
+	/**
+	 * The number of neighbours of each vertex.
+	 */
+	private int[] degrees = new int[16];
+
+	/**
+	 * One past the highest vertex index in use.
+	 */
+	private int vertexEnd;
+
+	/**
+	 * The number of vertices.
+	 */
+	private int vertexCount;
+
+	/**
+	 * Vertex indexes freed by removals, used as a stack.
+	 */
+	private int[] freeVertices = new int[16];
+
+	/**
+	 * The number of freed vertex indexes.
+	 */
+	private int freeVertexCount;
+
+	/**
+	 * Maps vertex ids to vertex indexes.
+	 */
+	private final IdIndex vertexIndex = new IdIndex();
+
+	/**
+	 * The edges by index; null where an index is free.
+	 */
+	private GraphEdge[] edges = new GraphEdge[16];
+
+	/**
+	 * The index of the endpoint of each edge with the smaller id.
+	 */
+	private int[] edgeFirst = new int[16];
+
+	/**
+	 * The index of the endpoint of each edge with the larger id.
+	 */
+	private int[] edgeSecond = new int[16];
+
+	/**
+	 * One past the highest edge index in use.
+	 */
+	private int edgeEnd;
+
+	/**
+	 * The number of edges.
+	 */
+	private int edgeCount;
+
+	/**
+	 * Edge indexes freed by removals, used as a stack.
+	 */
+	private int[] freeEdges = new int[16];
+
+	/**
+	 * The number of freed edge indexes.
+	 */
+	private int freeEdgeCount;
+
+	/**
+	 * Maps edge ids to edge indexes.
+	 */
+	private final IdIndex edgeIndex = new IdIndex();
+
+	/**
+	 * Number of modifications, used by the views' iterators to fail fast.
+	 */
+	private int modCount;
+
+	/**
+	 * Constructs an empty graph.
+	 */
+	public IntGraph310()
+	{
+	}
+
+	/**
+	 * Maps the ids of graph components to indexes. Ids within a small multiple
+	 * of the number of entries go straight into an array; others go into an
+	 * open addressing table of primitive ints with linear probing, laid out
+	 * like Hash310.
+	 */
+	private static class IdIndex
+	{
+		/**
+		 * Index + 1 by id for dense ids; 0 where there is none.
+		 */
+		private int[] dense = new int[16];
+
+		/**
+		 * The sparse ids, in probe order.
+		 */
+		private int[] keys = new int[16];
+
+		/**
+		 * Index + 1 for each sparse id; 0 marks an empty slot.
+		 */
+		private int[] values = new int[16];
+
+		/**
+		 * The number of entries.
+		 */
+		private int size;
+
+		/**
+		 * The number of entries in the sparse table.
+		 */
+		private int sparse;
+
+		/**
+		 * Finds the index for an id.
+		 * @param id The id.
+		 * @return The index, or -1 if the id is not mapped.
+		 */
+		int get(int id)
+		{
+			if(id >= 0 && id < dense.length && dense[id] != 0)
+				return dense[id] - 1;
+			if(sparse == 0)
+				return -1;
+			for(int i = slot(id, keys.length); values[i] != 0; i = (i + 1) & (keys.length - 1))
+			{
+				if(keys[i] == id)
+					return values[i] - 1;
+			}
+			return -1;
+		}
+
+		/**
+		 * Maps an id that is not mapped yet.
+		 * @param id The id.
+		 * @param index The index for it.
+		 */
+		void put(int id, int index)
+		{
+			size++;
+			if(id >= 0 && id < 4 * (size + 16))
+			{
+				if(id >= dense.length)
+					dense = Arrays.copyOf(dense, Math.max(id + 1, 2 * dense.length));
+				dense[id] = index + 1;
+				return;
+			}
+			if(2 * (sparse + 1) > keys.length)
+				rehash(2 * keys.length);
+			insert(id, index + 1);
+			sparse++;
+		}
+
+		/**
+		 * Unmaps an id that is mapped.
+		 * @param id The id.
+		 */
+		void remove(int id)
+		{
+			size--;
+			if(id >= 0 && id < dense.length && dense[id] != 0)
+			{
+				dense[id] = 0;
+				return;
+			}
+			int mask = keys.length - 1;
+			int hole = slot(id, keys.length);
+			while(keys[hole] != id || values[hole] == 0)
+				hole = (hole + 1) & mask;
+			sparse--;
+
+			//backward-shift the rest of the run so no tombstone is left
+			for(int i = (hole + 1) & mask; values[i] != 0; i = (i + 1) & mask)
+			{
+				int home = slot(keys[i], keys.length);
+				if(((i - home) & mask) >= ((i - hole) & mask))
+				{
+					keys[hole] = keys[i];
+					values[hole] = values[i];
+					hole = i;
+				}
+			}
+			values[hole] = 0;
+		}
+
+		/**
+		 * Reports whether every id is in the dense array.
+		 * @return True if no id is in the sparse table.
+		 */
+		boolean isDense() { return sparse == 0; }
+
+		/**
+		 * Places an entry in the sparse table, which has room for it.
+		 * @param id The id.
+		 * @param value Index + 1.
+		 */
+		private void insert(int id, int value)
+		{
+			int i = slot(id, keys.length);
+			while(values[i] != 0)
+				i = (i + 1) & (keys.length - 1);
+			keys[i] = id;
+			values[i] = value;
+		}
+
+		/**
+		 * Moves the sparse table to a new capacity.
+		 * @param capacity The new capacity, a power of two.
+		 */
+		private void rehash(int capacity)
+		{
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new int[capacity];
+			values = new int[capacity];
+			for(int i = 0; i < oldKeys.length; i++)
+			{
+				if(oldValues[i] != 0)
+					insert(oldKeys[i], oldValues[i]);
+			}
+		}
+
+		/**
+		 * The home slot of an id, by Fibonacci hashing as in Hash310, so that
+		 * strided ids do not share a cluster.
+		 * @param id The id.
+		 * @param capacity The table capacity, a power of two.
+		 * @return The slot.
+		 */
+		private static int slot(int id, int capacity)
+		{
+			return (id * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(capacity - 1);
+		}
+	}
+
+	/**
+	 * Finds the index of a vertex.
+	 * @param vertex The vertex.
+	 * @return The index, or -1 if the vertex is not in the graph.
+	 */
+	private int indexOf(GraphNode vertex)
+	{
+		return (vertex == null) ? -1 : vertexIndex.get(vertex.getId());
+	}
+
+	/**
+	 * Finds the index of an edge.
+	 * @param edge The edge.
+	 * @return The index, or -1 if the edge is not in the graph.
+	 */
+	private int indexOf(GraphEdge edge)
+	{
+		return (edge == null) ? -1 : edgeIndex.get(edge.getId());
+	}
+
+	/**
+	 * Gives a vertex an index, reusing a freed one if there is one.
+	 * @param vertex The vertex, which is not in the graph.
+	 * @return Its index.
+	 */
+	private int newVertex(GraphNode vertex)
+	{
+		int v;
+		if(freeVertexCount > 0)
+			v = freeVertices[--freeVertexCount];
+		else
+		{
+			v = vertexEnd++;
+			if(v == vertices.length)
+			{
+				vertices = Arrays.copyOf(vertices, 2 * v);
+				links = Arrays.copyOf(links, 2 * v);
+				degrees = Arrays.copyOf(degrees, 2 * v);
+			}
+		}
+		vertices[v] = vertex;
+		links[v] = NO_LINKS;
+		degrees[v] = 0;
+		vertexIndex.put(vertex.getId(), v);
+		vertexCount++;
+		modCount++;
+		return v;
+	}
+
+	/**
+	 * Gives an edge an index, reusing a freed one if there is one.
+	 * @param edge The edge, which is not in the graph.
+	 * @param v One endpoint index.
+	 * @param w The other endpoint index.
+	 * @return Its index.
+	 */
+	private int newEdge(GraphEdge edge, int v, int w)
+	{
+		int e;
+		if(freeEdgeCount > 0)
+			e = freeEdges[--freeEdgeCount];
+		else
+		{
+			e = edgeEnd++;
+			if(e == edges.length)
+			{
+				edges = Arrays.copyOf(edges, 2 * e);
+				edgeFirst = Arrays.copyOf(edgeFirst, 2 * e);
+				edgeSecond = Arrays.copyOf(edgeSecond, 2 * e);
+			}
+		}
+		boolean ordered = vertices[v].getId() <= vertices[w].getId();
+		edges[e] = edge;
+		edgeFirst[e] = ordered ? v : w;
+		edgeSecond[e] = ordered ? w : v;
+		edgeIndex.put(edge.getId(), e);
+		edgeCount++;
+		modCount++;
+		return e;
+	}
+
+	/**
+	 * Frees the index of an edge that is no longer linked.
+	 * @param e The edge index.
+	 */
+	private void freeEdge(int e)
+	{
+		edgeIndex.remove(edges[e].getId());
+		edges[e] = null;
+		if(freeEdgeCount == freeEdges.length)
+			freeEdges = Arrays.copyOf(freeEdges, 2 * freeEdgeCount);
+		freeEdges[freeEdgeCount++] = e;
+		edgeCount--;
+		modCount++;
+	}
+
+	/**
+	 * Appends a neighbour to the adjacency of a vertex.
+	 * @param v The vertex index.
+	 * @param w The neighbour index.
+	 * @param e The edge index.
+	 */
+	private void link(int v, int w, int e)
+	{
+		int d = degrees[v];
+		if(2 * d == links[v].length)
+			links[v] = Arrays.copyOf(links[v], Math.max(4, 4 * d));
+		links[v][2 * d] = w;
+		links[v][2 * d + 1] = e;
+		degrees[v] = d + 1;
+	}
+
+	/**
+	 * Removes an edge from the adjacency of a vertex, moving the last pair
+	 * into its place.
+	 * @param v The vertex index.
+	 * @param e The edge index, which is in the adjacency of v.
+	 */
+	private void unlink(int v, int e)
+	{
+		int[] a = links[v];
+		int last = 2 * (--degrees[v]);
+		int i = 1;
+		while(a[i] != e)
+			i += 2;
+		a[i - 1] = a[last];
+		a[i] = a[last + 1];
+	}
+
+	/**
+	 * Finds the edge between two vertices, walking the smaller adjacency.
+	 * @param v The first vertex index.
+	 * @param w The second vertex index.
+	 * @return The edge index, or -1 if v and w are not adjacent.
+	 */
+	private int edgeBetween(int v, int w)
+	{
+		if(degrees[v] > degrees[w])
+		{
+			int t = v;
+			v = w;
+			w = t;
+		}
+		int[] a = links[v];
+		for(int i = 2 * degrees[v] - 2; i >= 0; i -= 2)
+		{
+			if(a[i] == w)
+				return a[i + 1];
+		}
+		return -1;
+	}
+
+	/**
+	 * Read-only live view of the vertices or the edges of the graph.
+	 * @param <T> The component type.
+	 */
+	private class ComponentView<T extends GraphComp> extends AbstractCollection<T>
+	{
+		/**
+		 * Whether this is the view of the edges.
+		 */
+		private final boolean ofEdges;
+
+		/**
+		 * The component with an index, or null.
+		 */
+		private final IntFunction<T> at;
+
+		/**
+		 * Constructor.
+		 * @param ofEdges Whether this is the view of the edges.
+		 * @param at The component with an index, or null.
+		 */
+		ComponentView(boolean ofEdges, IntFunction<T> at)
+		{
+			this.ofEdges = ofEdges;
+			this.at = at;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public int size() { return ofEdges ? edgeCount : vertexCount; }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean contains(Object o)
+		{
+			return ofEdges ? (o instanceof GraphEdge && containsEdge((GraphEdge)o))
+				: (o instanceof GraphNode && containsVertex((GraphNode)o));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Iterator<T> iterator()
+		{
+			return new Iterator<T>() {
+				private int index = -1;
+				private int expectedModCount = modCount;
+
+				public boolean hasNext()
+				{
+					int end = ofEdges ? edgeEnd : vertexEnd;
+					while(index + 1 < end && at.apply(index + 1) == null)
+						index++;
+					return index + 1 < end;
+				}
+
+				public T next()
+				{
+					if(modCount != expectedModCount)
+						throw new ConcurrentModificationException();
+					if(!hasNext())
+						throw new NoSuchElementException();
+					return at.apply(++index);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Read-only live view of the neighbours or the incident edges of a vertex.
+	 * @param <T> The component type.
+	 */
+	private class AdjacencyView<T extends GraphComp> extends AbstractCollection<T>
+	{
+		/**
+		 * The vertex.
+		 */
+		private final GraphNode vertex;
+
+		/**
+		 * Its index when the view was made.
+		 */
+		private final int v;
+
+		/**
+		 * Whether this is the view of the edges, at the odd positions.
+		 */
+		private final int part;
+
+		/**
+		 * The component with an index.
+		 */
+		private final IntFunction<T> at;
+
+		/**
+		 * Answers contains.
+		 */
+		private final Predicate<Object> test;
+
+		/**
+		 * Constructor.
+		 * @param vertex The vertex.
+		 * @param ofEdges Whether this is the view of the edges.
+		 * @param at The component with an index.
+		 * @param test Answers contains.
+		 */
+		AdjacencyView(GraphNode vertex, boolean ofEdges, IntFunction<T> at, Predicate<Object> test)
+		{
+			this.vertex = vertex;
+			this.v = indexOf(vertex);
+			this.part = ofEdges ? 1 : 0;
+			this.at = at;
+			this.test = test;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * Zero once the vertex has left the graph.
+		 */
+		public int size() { return (vertices[v] == vertex) ? degrees[v] : 0; }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean contains(Object o) { return test.test(o); }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Iterator<T> iterator()
+		{
+			return new Iterator<T>() {
+				private int i;
+				private int expectedModCount = modCount;
+
+				public boolean hasNext() { return i < size(); }
+
+				public T next()
+				{
+					if(modCount != expectedModCount)
+						throw new ConcurrentModificationException();
+					if(!hasNext())
+						throw new NoSuchElementException();
+					return at.apply(links[v][2 * i++ + part]);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Returns a view of all edges in this graph.
+	 * In general, this obeys the Collection contract, and therefore makes no guarantees about the ordering of the edges within the set.
+	 * @return A Collection view of all edges in this graph.
+	 */
+	public Collection<GraphEdge> getEdges()
+	{
+		return new ComponentView<>(true, e -> edges[e]);
+	}
+
+	/**
+	 * Returns a view of all vertices in this graph.
+	 * In general, this obeys the Collection contract, and therefore makes no guarantees about the ordering of the vertices within the set.
+	 * @return A Collection view of all vertices in this graph.
+	 */
+	public Collection<GraphNode> getVertices()
+	{
+		return new ComponentView<>(false, v -> vertices[v]);
+	}
+
+	/**
+	 * Returns the number of edges in this graph.
+	 * @return The number of edges in this graph.
+	 */
+	public int getEdgeCount() { return edgeCount; }
+
+	/**
+	 * Returns the number of vertices in this graph.
+	 * @return The number of vertices in this graph.
+	 */
+	public int getVertexCount() { return vertexCount; }
+
+	/**
+	 * Returns true if this graph's vertex collection contains vertex.
+	 * Equivalent to getVertices().contains(vertex).
+	 * @param vertex The vertex whose presence is being queried.
+	 * @return True if this graph contains a vertex.
+	 */
+	public boolean containsVertex(GraphNode vertex) { return indexOf(vertex) >= 0; }
+
+	/**
+	 * Returns true if this graph's edge collection contains edge.
+	 * Equivalent to getEdges().contains(edge).
+	 * @param edge The edge whose presence is being queried.
+	 * @return True if this graph contains edge.
+	 */
+	public boolean containsEdge(GraphEdge edge) { return indexOf(edge) >= 0; }
+
+	/**
+	 * Returns the collection of vertices which are connected to vertex via any edges in this graph.
+	 * @param vertex The vertex whose neighbors are to be returned.
+	 * @return The collection of vertices which are connected to vertex, or null if vertex is not present.
+	 */
+	public Collection<GraphNode> getNeighbors(GraphNode vertex)
+	{
+		if(indexOf(vertex) < 0)
+			return null;
+		return new AdjacencyView<>(vertex, false, w -> vertices[w],
+			o -> o instanceof GraphNode && isNeighbor(vertex, (GraphNode)o));
+	}
+
+	/**
+	 * Returns the number of vertices that are adjacent to vertex.
+	 * @param vertex The vertex whose neighbor count is to be returned.
+	 * @return The number of vertices that are adjacent to vertex.
+	 */
+	public int getNeighborCount(GraphNode vertex)
+	{
+		int v = indexOf(vertex);
+		return (v < 0) ? 0 : degrees[v];
+	}
+
+	/**
+	 * Returns an edge that connects v1 to v2.
+	 * @param v1 The first endpoint of the returned edge.
+	 * @param v2 The second endpoint of the returned edge.
+	 * @return An edge that connects v1 to v2, or null if no such edge exists (or either vertex is not present).
+	 */
+	public GraphEdge findEdge(GraphNode v1, GraphNode v2)
+	{
+		int v = indexOf(v1);
+		int w = indexOf(v2);
+		if(v < 0 || w < 0)
+			return null;
+		int e = edgeBetween(v, w);
+		return (e < 0) ? null : edges[e];
+	}
+
+	/**
+	 * Returns true if vertex and edge are incident to each other.
+	 * @param vertex The vertex.
+	 * @param edge The edge.
+	 * @return True if vertex and edge are incident to each other.
+	 */
+	public boolean isIncident(GraphNode vertex, GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		int v = indexOf(vertex);
+		return e >= 0 && v >= 0 && (edgeFirst[e] == v || edgeSecond[e] == v);
+	}
+
+	/**
+	 * Returns the endpoints of edge as a Pair, the vertex with the smaller id first.
+	 * @param edge The edge whose endpoints are to be returned.
+	 * @return The endpoints (incident vertices) of edge, or null if edge is not present.
+	 */
+	public Pair<GraphNode> getEndpoints(GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		if(e < 0)
+			return null;
+		return new Pair<>(vertices[edgeFirst[e]], vertices[edgeSecond[e]]);
+	}
+
+	/**
+	 * Returns the collection of edges in this graph which are connected to vertex.
+	 * @param vertex The vertex whose incident edges are to be returned.
+	 * @return The collection of edges which are connected to vertex, or null if vertex is not present.
+	 */
+	public Collection<GraphEdge> getIncidentEdges(GraphNode vertex)
+	{
+		if(indexOf(vertex) < 0)
+			return null;
+		return new AdjacencyView<>(vertex, true, e -> edges[e],
+			o -> o instanceof GraphEdge && isIncident(vertex, (GraphEdge)o));
+	}
+
+	/**
+	 * Adds edge e to this graph such that it connects vertex v1 to v2.
+	 * If this graph does not contain v1, v2, or both, the method silently adds the vertices to the graph.
+	 * @param e The edge to be added.
+	 * @param v1 The first vertex to be connected.
+	 * @param v2 The second vertex to be connected.
+	 * @return True if the add is successful, false otherwise.
+	 */
+	public boolean addEdge(GraphEdge e, GraphNode v1, GraphNode v2)
+	{
+		if(v1 == null || v2 == null || e == null || v1 == v2 || indexOf(e) >= 0)
+			return false;
+		int v = indexOf(v1);
+		int w = indexOf(v2);
+		if(v >= 0 && w >= 0 && edgeBetween(v, w) >= 0)
+			return false;
+
+		if(v < 0)
+			v = newVertex(v1);
+		if(w < 0)
+			w = newVertex(v2);
+		int x = newEdge(e, v, w);
+		link(v, w, x);
+		link(w, v, x);
+		return true;
+	}
+
+	/**
+	 * Adds vertex to this graph.
+	 * Fails if vertex is null or already in the graph.
+	 * @param vertex The vertex to add.
+	 * @return True if the add is successful, and false otherwise.
+	 * @throws IllegalArgumentException if vertex is null.
+	 */
+	public boolean addVertex(GraphNode vertex)
+	{
+		if(vertex == null)
+			throw new IllegalArgumentException();
+		if(indexOf(vertex) >= 0)
+			return false;
+		newVertex(vertex);
+		return true;
+	}
+
+	/**
+	 * Removes edge from this graph.
+	 * @param edge The edge to remove.
+	 * @return True if the removal is successful, false otherwise.
+	 */
+	public boolean removeEdge(GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		if(e < 0)
+			return false;
+		unlink(edgeFirst[e], e);
+		unlink(edgeSecond[e], e);
+		freeEdge(e);
+		return true;
+	}
+
+	/**
+	 * Removes vertex from this graph, along with its edges.
+	 * @param vertex The vertex to remove.
+	 * @return True if the removal is successful, false otherwise.
+	 */
+	public boolean removeVertex(GraphNode vertex)
+	{
+		int v = indexOf(vertex);
+		if(v < 0)
+			return false;
+
+		int[] a = links[v];
+		for(int i = 0; i < 2 * degrees[v]; i += 2)
+		{
+			unlink(a[i], a[i + 1]);
+			freeEdge(a[i + 1]);
+		}
+
+		vertexIndex.remove(vertex.getId());
+		vertices[v] = null;
+		links[v] = NO_LINKS;
+		degrees[v] = 0;
+		if(freeVertexCount == freeVertices.length)
+			freeVertices = Arrays.copyOf(freeVertices, 2 * freeVertexCount);
+		freeVertices[freeVertexCount++] = v;
+		vertexCount--;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Takes an immutable compressed sparse row snapshot of this graph.
+	 * @return A snapshot of this graph.
+	 */
+	public CSRGraph310 snapshot()
+	{
+		return new CSRGraph310(this);
+	}
+
+	/**
+	 * Report a set of graph nodes that are reachable from the given vertex,
+	 * not including the vertex itself. The search runs over the vertex
+	 * indexes with a primitive stack; the result is a BitSet310 while vertex
+	 * ids are dense and a hashed Set310 otherwise. The BitSet310 is detached
+	 * once the search is done, so either way later changes to the graph do
+	 * not show in the set.
+	 * @param vertex The vertex to get the reachables from.
+	 * @return A set of graph nodes that are reachable from vertex, or null if vertex is not present.
+	 */
+	public Set<GraphNode> reachableSet(GraphNode vertex)
+	{
+		int start = indexOf(vertex);
+		if(start < 0)
+			return null;
+		BitSet310<GraphNode> bits = vertexIndex.isDense()
+			? new BitSet310<>(id -> vertices[vertexIndex.get(id)], vertex.getId())
+			: null;
+		Set<GraphNode> set = (bits != null) ? bits : new Set310<>(true);
+
+		boolean[] seen = new boolean[vertexEnd];
+		int[] stack = new int[16];
+		int top = 0;
+		seen[start] = true;
+		stack[top++] = start;
+		while(top > 0)
+		{
+			int current = stack[--top];
+			int[] a = links[current];
+			for(int i = 2 * degrees[current] - 2; i >= 0; i -= 2)
+			{
+				int w = a[i];
+				if(seen[w])
+					continue;
+				seen[w] = true;
+				set.add(vertices[w]);
+				if(top == stack.length)
+					stack = Arrays.copyOf(stack, 2 * top);
+				stack[top++] = w;
+			}
+		}
+		set.remove(vertex);
+		return (bits != null) ? bits.detach() : set;
+	}
+
+	/**
+	 * Returns the collection of edges in this graph which are connected to vertex.
+	 * @param vertex The vertex whose incoming edges are to be returned.
+	 * @return The collection of edges which are connected to vertex, or null if vertex is not present.
+	 */
+	public Collection<GraphEdge> getInEdges(GraphNode vertex) { return getIncidentEdges(vertex); }
+
+	/**
+	 * Returns the collection of edges in this graph which are connected to vertex.
+	 * @param vertex The vertex whose outgoing edges are to be returned.
+	 * @return The collection of edges which are connected to vertex, or null if vertex is not present.
+	 */
+	public Collection<GraphEdge> getOutEdges(GraphNode vertex) { return getIncidentEdges(vertex); }
+
+	/**
+	 * Returns the number of edges incident to vertex.
+	 * @param vertex The vertex whose indegree is to be calculated.
+	 * @return The number of edges incident to vertex.
+	 */
+	public int inDegree(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * Returns the number of edges incident to vertex.
+	 * @param vertex The vertex whose outdegree is to be calculated.
+	 * @return The number of edges incident to vertex.
+	 */
+	public int outDegree(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * Returns the neighbors of vertex.
+	 * @param vertex The vertex whose predecessors are to be returned.
+	 * @return A Collection view of the neighbors of vertex, or null if vertex is not present.
+	 */
+	public Collection<GraphNode> getPredecessors(GraphNode vertex) { return getNeighbors(vertex); }
+
+	/**
+	 * Returns the neighbors of vertex.
+	 * @param vertex The vertex whose successors are to be returned.
+	 * @return A Collection view of the neighbors of vertex, or null if vertex is not present.
+	 */
+	public Collection<GraphNode> getSuccessors(GraphNode vertex) { return getNeighbors(vertex); }
+
+	/**
+	 * Returns true if v1 is a neighbor of v2.
+	 * @param v1 The first vertex.
+	 * @param v2 The second vertex.
+	 * @return True if v1 is a neighbor of v2.
+	 */
+	public boolean isPredecessor(GraphNode v1, GraphNode v2) { return isNeighbor(v1, v2); }
+
+	/**
+	 * Returns true if v1 is a neighbor of v2.
+	 * @param v1 The first vertex.
+	 * @param v2 The second vertex.
+	 * @return True if v1 is a neighbor of v2.
+	 */
+	public boolean isSuccessor(GraphNode v1, GraphNode v2) { return isNeighbor(v1, v2); }
+
+	/**
+	 * Returns null: the graph is undirected.
+	 * @param directedEdge The edge.
+	 * @return Null.
+	 */
+	public GraphNode getSource(GraphEdge directedEdge) { return null; }
+
+	/**
+	 * Returns null: the graph is undirected.
+	 * @param directedEdge The edge.
+	 * @return Null.
+	 */
+	public GraphNode getDest(GraphEdge directedEdge) { return null; }
+
+	/**
+	 * Returns the number of edges incident to vertex.
+	 * @param vertex The vertex whose degree is to be returned.
+	 * @return The degree of this node.
+	 */
+	public int degree(GraphNode vertex) { return getNeighborCount(vertex); }
+
+	/**
+	 * Returns true if v1 and v2 share an incident edge.
+	 * @param v1 The first vertex to test.
+	 * @param v2 The second vertex to test.
+	 * @return True if v1 and v2 share an incident edge.
+	 */
+	public boolean isNeighbor(GraphNode v1, GraphNode v2) { return findEdge(v1, v2) != null; }
+
+	/**
+	 * Returns the collection of vertices in this graph which are connected to edge.
+	 * @param edge The edge whose incident vertices are to be returned.
+	 * @return The collection of vertices which are connected to edge, or null if edge is not present.
+	 */
+	public Collection<GraphNode> getIncidentVertices(GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		if(e < 0)
+			return null;
+		return Collections.unmodifiableList(Arrays.asList(vertices[edgeFirst[e]], vertices[edgeSecond[e]]));
+	}
+
+	/**
+	 * Returns the collection of edges in this graph which are of type edgeType.
+	 * @param edgeType The type of edges to be returned.
+	 * @return The collection of edges which are of type edgeType, or null if the graph does not accept edges of this type.
+	 */
+	public Collection<GraphEdge> getEdges(EdgeType edgeType)
+	{
+		return (edgeType == EdgeType.UNDIRECTED) ? getEdges() : null;
+	}
+
+	/**
+	 * Returns the number of edges of type edgeType in this graph.
+	 * @param edgeType The type of edge for which the count is to be returned.
+	 * @return The number of edges of type edgeType in this graph.
+	 */
+	public int getEdgeCount(EdgeType edgeType)
+	{
+		return (edgeType == EdgeType.UNDIRECTED) ? edgeCount : 0;
+	}
+
+	/**
+	 * Returns the number of neighbors of vertex.
+	 * @param vertex The vertex whose predecessor count is to be returned.
+	 * @return The number of neighbors of vertex.
+	 */
+	public int getPredecessorCount(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * Returns the number of neighbors of vertex.
+	 * @param vertex The vertex whose successor count is to be returned.
+	 * @return The number of neighbors of vertex.
+	 */
+	public int getSuccessorCount(GraphNode vertex) { return degree(vertex); }
+
+	/**
+	 * Returns the vertex at the other end of edge from vertex.
+	 * @param vertex The vertex to be queried.
+	 * @param edge The edge to be queried.
+	 * @return The vertex at the other end of edge from vertex.
+	 * @throws IllegalArgumentException if vertex is not incident to edge.
+	 */
+	public GraphNode getOpposite(GraphNode vertex, GraphEdge edge)
+	{
+		int e = indexOf(edge);
+		int v = indexOf(vertex);
+		if(e < 0 || v < 0 || (edgeFirst[e] != v && edgeSecond[e] != v))
+			throw new IllegalArgumentException(vertex + " is not incident to " + edge);
+		return vertices[(edgeFirst[e] == v) ? edgeSecond[e] : edgeFirst[e]];
+	}
+
+	/**
+	 * Returns all edges that connect v1 to v2: at most one, as there are no parallel edges.
+	 * @param v1 The first endpoint of the returned edge set.
+	 * @param v2 The second endpoint of the returned edge set.
+	 * @return A collection containing the edge that connects v1 to v2, or null if either vertex is not present.
+	 */
+	public Collection<GraphEdge> findEdgeSet(GraphNode v1, GraphNode v2)
+	{
+		GraphEdge edge = findEdge(v1, v2);
+		return (edge == null) ? null : Collections.singletonList(edge);
+	}
+
+	/**
+	 * Returns false: the graph is undirected.
+	 * @param vertex The vertex.
+	 * @param edge The edge.
+	 * @return False.
+	 */
+	public boolean isSource(GraphNode vertex, GraphEdge edge) { return false; }
+
+	/**
+	 * Returns false: the graph is undirected.
+	 * @param vertex The vertex.
+	 * @param edge The edge.
+	 * @return False.
+	 */
+	public boolean isDest(GraphNode vertex, GraphEdge edge) { return false; }
+
+	/**
+	 * Adds edge e to this graph such that it connects vertex v1 to v2.
+	 * @param e The edge to be added.
+	 * @param v1 The first vertex to be connected.
+	 * @param v2 The second vertex to be connected.
+	 * @param edgeType The type to be assigned to the edge.
+	 * @return True if the add is successful, false otherwise.
+	 */
+	public boolean addEdge(GraphEdge e, GraphNode v1, GraphNode v2, EdgeType edgeType)
+	{
+		if(edgeType != EdgeType.UNDIRECTED)
+			throw new IllegalArgumentException("Only undirected edges are supported.");
+		return addEdge(e, v1, v2);
+	}
+
+	/**
+	 * Adds edge to this graph, connecting the two given vertices.
+	 * @param edge The edge to add.
+	 * @param vertices The two vertices to connect.
+	 * @return True if the add is successful, false otherwise.
+	 */
+	public boolean addEdge(GraphEdge edge, Collection<? extends GraphNode> vertices)
+	{
+		if(edge == null || vertices == null || vertices.size() != 2)
+			return false;
+		Iterator<? extends GraphNode> it = vertices.iterator();
+		return addEdge(edge, it.next(), it.next());
+	}
+
+	/**
+	 * Adds edge to this graph, connecting the two given vertices.
+	 * @param edge The edge to add.
+	 * @param vertices The two vertices to connect.
+	 * @param edgeType The type to be assigned to the edge.
+	 * @return True if the add is successful, false otherwise.
+	 */
+	public boolean addEdge(GraphEdge edge, Collection<? extends GraphNode> vertices, EdgeType edgeType)
+	{
+		if(edgeType != EdgeType.UNDIRECTED)
+			throw new IllegalArgumentException("Only undirected edges are supported.");
+		return addEdge(edge, vertices);
+	}
+
+	/**
+	 * Returns a {@code Factory} that creates an instance of this graph type,
+	 * to be used where Graph310.getFactory() is.
+	 * @param <V> the vertex type for the graph factory
+	 * @param <E> the edge type for the graph factory
+	 * @return A {@code Factory} that creates an instance of this graph type.
+	 */
+	public static <V,E> Factory<UndirectedGraph<GraphNode,GraphEdge>> getFactory()
+	{
+		return new Factory<UndirectedGraph<GraphNode,GraphEdge>>() {
+			public UndirectedGraph<GraphNode,GraphEdge> create() {
+				return new IntGraph310();
+			}
+		};
+	}
+
+	/**
+	 * Returns the edge type of edge in this graph.
+	 * @param edge The edge.
+	 * @return The EdgeType of edge.
+	 */
+	public EdgeType getEdgeType(GraphEdge edge) { return EdgeType.UNDIRECTED; }
+
+	/**
+	 * Returns the default edge type for this graph.
+	 * @return The default edge type for this graph.
+	 */
+	public EdgeType getDefaultEdgeType() { return EdgeType.UNDIRECTED; }
+
+	/**
+	 * Returns the number of vertices that are incident to edge.
+	 * @param edge The edge whose incident vertex count is to be returned.
+	 * @return The number of vertices that are incident to edge.
+	 */
+	public int getIncidentCount(GraphEdge edge) { return 2; }
+
+	/**
+	 * Main method for testing.
+	 * @param args Not used.
+	 */
+	public static void main(String[] args)
+	{
+		GraphNode[] nodes = new GraphNode[10];
+		for(int i = 0; i < nodes.length; i++)
+			nodes[i] = new GraphNode(i);
+		GraphEdge[] edges = new GraphEdge[8];
+		for(int i = 0; i < edges.length; i++)
+			edges[i] = new GraphEdge(i, i + 1);
+
+		//same graph as the Graph310 test, built through the factory
+		UndirectedGraph<GraphNode,GraphEdge> graph = IntGraph310.<GraphNode,GraphEdge>getFactory().create();
+		for(GraphNode n : nodes)
+			graph.addVertex(n);
+		graph.addEdge(edges[0], nodes[0], nodes[1]);
+		graph.addEdge(edges[1], nodes[1], nodes[2]);
+		graph.addEdge(edges[2], nodes[3], nodes[6]);
+		graph.addEdge(edges[3], nodes[6], nodes[7]);
+		graph.addEdge(edges[4], nodes[8], nodes[9]);
+		graph.addEdge(edges[5], nodes[9], nodes[0]);
+		graph.addEdge(edges[6], nodes[2], nodes[7]);
+		graph.addEdge(edges[7], nodes[1], nodes[8]);
+
+		Pair<GraphNode> ends = graph.getEndpoints(edges[5]);
+		if(graph.getVertexCount() == 10 && graph.getEdgeCount() == 8 && graph.getNeighborCount(nodes[1]) == 3 &&
+			ends.getFirst() == nodes[0] && ends.getSecond() == nodes[9] && graph.findEdge(nodes[8], nodes[1]) == edges[7] &&
+			!graph.addEdge(new GraphEdge(20), nodes[1], nodes[0]) && !graph.addEdge(edges[0], nodes[4], nodes[5])) {
+			System.out.println("Yay 1");
+		}
+
+		IntGraph310 ints = (IntGraph310)graph;
+		Set<GraphNode> reachable = ints.reachableSet(nodes[1]);
+		if(reachable instanceof BitSet310 && reachable.size() == 7 && !reachable.contains(nodes[5]) &&
+			!reachable.contains(nodes[1]) && reachable.contains(nodes[3])) {
+			System.out.println("Yay 2");
+		}
+
+		//views are live; freed indexes are reused by later additions
+		Collection<GraphEdge> around0 = graph.getIncidentEdges(nodes[0]);
+		Collection<GraphNode> around1 = graph.getNeighbors(nodes[1]);
+		graph.removeVertex(nodes[1]);
+		GraphNode far = new GraphNode(1000000);
+		graph.addEdge(new GraphEdge(1000000), far, nodes[4]);
+		if(around0.size() == 1 && around0.contains(edges[5]) && around1.isEmpty() && graph.getEdgeCount() == 6 &&
+			graph.getVertexCount() == 10 && !graph.containsEdge(edges[7]) && graph.getEndpoints(edges[1]) == null &&
+			graph.getNeighbors(far).contains(nodes[4]) && ints.reachableSet(nodes[4]) instanceof Set310) {
+			System.out.println("Yay 3");
+		}
+
+		//the snapshot sees the same graph
+		CSRGraph310 csr = ints.snapshot();
+		int count = 0;
+		for(GraphEdge e : graph.getEdges())
+			count += (csr.findEdge(graph.getEndpoints(e).getFirst(), graph.getEndpoints(e).getSecond()) == e) ? 1 : 0;
+		if(count == 6 && csr.vertexCount() == 10 && csr.degreeOf(csr.indexOf(nodes[4])) == 1) {
+			System.out.println("Yay 4");
+		}
+
+		//the reachable set from earlier still holds its nodes after one leaves and its id is reused
+		GraphNode old7 = nodes[7];
+		graph.removeVertex(old7);
+		graph.addVertex(new GraphNode(7));
+		boolean same = false;
+		for(GraphNode n : reachable)
+			same |= (n == old7);
+		if(same && reachable.size() == 7 && reachable.contains(old7) && reachable.toString().endsWith(", 7, 8, 9]")) {
+			System.out.println("Yay 5");
+		}
+	}
+}
@@ -8,6 +8,8 @@ import edu.uci.ics.jung.graph.util.Pair;
 
 import java.awt.Color;
 
+import java.util.Collection;
+
 import javax.swing.JPanel;
 
 
@@ -22,14 +24,15 @@ class Kruskal310 implements ThreeTenAlg {
 	Graph<GraphNode, GraphEdge> graph;
 	
 	/**
-	 *  The priority queue of edges for the algorithm.
+	 *  The priority queue of edges for the algorithm, heapified in linear
+	 *  time so that edges are only ordered as the steps take them.
 	 */
-	WeissBST<GraphEdge> pqueue;
+	BinaryHeap310<GraphEdge> pqueue;
 	
 	/**
-	 *  The subgraph of the MST in construction.
+	 *  The union-find forest of the trees joined so far, by vertex id.
 	 */
-	private Graph310 markedGraph;
+	private UnionFind310 forest;
 	
 	/**
 	 *  Whether or not the algorithm has been started.
@@ -85,7 +88,7 @@ class Kruskal310 implements ThreeTenAlg {
 		this.graph = graph;
 		started = false;
 		pqueue = null;	
-		markedGraph = new Graph310();	
+		forest = new UnionFind310(graph.getVertexCount());	
 	}
 	
 	/**
@@ -121,9 +124,12 @@ class Kruskal310 implements ThreeTenAlg {
 		// - add all edges into the priority queue
 		//----------------------------------------------------
 
-		pqueue = new WeissBST<>();
-		for(GraphEdge edge : graph.getEdges())
-			pqueue.insert(edge);
+		Collection<GraphEdge> all = graph.getEdges();
+		GraphEdge[] edges = new GraphEdge[all.size()];
+		int n = 0;
+		for(GraphEdge edge : all)
+			edges[n++] = edge;
+		pqueue = new BinaryHeap310<>(edges, n);
 		
 		//----------------------------------------------------
 		// End of missing part
@@ -149,10 +155,10 @@ class Kruskal310 implements ThreeTenAlg {
 		//wrapping up the algorithm
 		// - mark all edges not selected to be inactive		
 		// - mark all nodes not in the constructed MST with COLOR_WARINING
-		for(GraphEdge edge : pqueue.values())
+		for(GraphEdge edge : pqueue) //one sweep over the heap array
 			edge.setColor(COLOR_INACTIVE_EDGE);
 		for(GraphNode node : graph.getVertices())
-			if(!markedGraph.containsVertex(node))
+			if(!forest.contains(node.getId())) //no selected edge ever touched it
 				node.setColor(COLOR_WARNING);
 	}
 	
@@ -164,7 +170,8 @@ class Kruskal310 implements ThreeTenAlg {
 		//decide whether we are done with the MST algorithm
 		// return true if more steps to continue; return false if done
 		// Hint: you may not always need to check all edges.
-		if(markedGraph.getEdgeCount() == graph.getVertexCount() - 1 || pqueue.isEmpty())
+		//V-1 unions in the forest make a spanning tree
+		if(forest.unions() == graph.getVertexCount() - 1 || pqueue.isEmpty())
 			return false;
 		
 		return true;
@@ -181,15 +188,15 @@ class Kruskal310 implements ThreeTenAlg {
 		//     the edge and nodes (COLOR_SELECTED)
 		// - if edge should not be included, change its color to COLOR_INACTIVE_EDGE
 		// - if MST is not completed, highlight next min edge
-		GraphEdge min = pqueue.findMin();
-		pqueue.removeMin();
+		GraphEdge min = pqueue.removeMin();
 
-		GraphNode v1 = graph.getEndpoints(min).getFirst();
-		GraphNode v2 = graph.getEndpoints(min).getSecond();
+		Pair<GraphNode> ends = graph.getEndpoints(min);
+		GraphNode v1 = ends.getFirst();
+		GraphNode v2 = ends.getSecond();
 		
-		if(markedGraph.reachableSet(v1) == null || !markedGraph.reachableSet(v1).contains(v2))
+		//the edge joins two trees exactly when the forest merges two sets
+		if(forest.union(v1.getId(), v2.getId()))
 		{
-			markedGraph.addEdge(min, v1, v2);
 			v1.setColor(COLOR_SELECTED);
 			v2.setColor(COLOR_SELECTED);
 			min.setColor(COLOR_SELECTED);
@@ -0,0 +1,102 @@
+import edu.uci.ics.jung.graph.Graph;
+
+import java.awt.Color;
+
+import java.util.Collection;
+
+/**
+ * Computes minimum spanning forests in one call, for callers that do not
+ * render anything. This is Kruskal's algorithm without the steps of
+ * Kruskal310: no colours are set and no priority queue or marked graph is
+ * kept. The edges are copied into an EdgeList310, ordered once by
+ * EdgeSort310, and scanned against a UnionFind310 over the vertex ids.
+ */
+class MST310 {
+
+	/**
+	 * Not instantiable: all methods are static.
+	 */
+	private MST310() {
+	}
+
+	/**
+	 * Computes a minimum spanning forest of a graph: a minimum spanning tree
+	 * of every connected component. Edges are taken in GraphEdge.compareTo
+	 * order, so the result is the one Kruskal310 finds. The graph and its
+	 * components are not changed.
+	 *
+	 * @param graph the graph; vertex ids must not be negative
+	 * @return the spanning forest
+	 */
+	public static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph) {
+		Collection<GraphNode> vertices = graph.getVertices();
+		EdgeList310 list = new EdgeList310(graph);
+		int m = list.size();
+		int[] first = list.first;
+		int[] second = list.second;
+
+		int[] order = EdgeSort310.order(list.weights, list.ids, m);
+
+		UnionFind310 forest = new UnionFind310(list.maxId);
+		for(GraphNode v : vertices)
+			forest.find(v.getId());
+
+		GraphEdge[] selected = new GraphEdge[Math.max(0, vertices.size() - 1)];
+		int[] selectedEnds = new int[selected.length];
+		int count = 0;
+		for(int i = 0; i < m && count < selected.length; i++) {
+			int e = order[i];
+			if(forest.union(first[e], second[e])) {
+				selected[count] = list.edges[e];
+				selectedEnds[count++] = first[e];
+			}
+		}
+		return new SpanningForest310(selected, selectedEnds, count, forest::find, vertices);
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		//the second graph of the Kruskal310 test
+		Graph310 graph = new Graph310();
+		GraphNode[] nodes = new GraphNode[6];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = new GraphNode(i);
+			graph.addVertex(nodes[i]);
+		}
+		GraphEdge[] edges = {
+			new GraphEdge(0,7), new GraphEdge(1,1), new GraphEdge(2,19), new GraphEdge(3,3),
+			new GraphEdge(4,16), new GraphEdge(5,2), new GraphEdge(6,9)
+		};
+		graph.addEdge(edges[0], nodes[2], nodes[0]);
+		graph.addEdge(edges[1], nodes[3], nodes[1]);
+		graph.addEdge(edges[2], nodes[1], nodes[5]);
+		graph.addEdge(edges[3], nodes[3], nodes[2]);
+		graph.addEdge(edges[4], nodes[2], nodes[5]);
+		graph.addEdge(edges[5], nodes[3], nodes[0]);
+		graph.addEdge(edges[6], nodes[0], nodes[5]);
+
+		//edges 1,5,3,6 in that order; node 4 is a tree of its own
+		SpanningForest310 mst = computeMinimumSpanningForest(graph);
+		int big = mst.treeOf(nodes[0]);
+		if(mst.edges().size() == 4 && mst.edges().get(0) == edges[1] && mst.edges().get(1) == edges[5] &&
+			mst.edges().get(3) == edges[6] && mst.totalWeight() == 15 && mst.treeCount() == 2 &&
+			mst.tree(big).size() == 4 && mst.treeWeight(big) == 15 && mst.tree(mst.treeOf(nodes[4])).isEmpty() &&
+			mst.treeOf(nodes[5]) == big && mst.treeOf(new GraphNode(9)) == -1) {
+			System.out.println("Yay 1");
+		}
+
+		//nothing is coloured
+		boolean untouched = true;
+		for(GraphEdge e : edges)
+			untouched &= e.getColor() == Color.BLACK;
+		for(GraphNode v : nodes)
+			untouched &= v.getColor() == Color.WHITE;
+		if(untouched && computeMinimumSpanningForest(new Graph310()).treeCount() == 0) {
+			System.out.println("Yay 2");
+		}
+	}
+}
@@ -1,20 +1,43 @@
 //TODO:
 // -Implement method keySet() and values(). Make sure to add JavaDoc for them. 
 
+import java.lang.reflect.Array;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.Iterator;
-
-import java.util.Collection; //for returning in the values() function only
-import java.util.LinkedList;//for returning in the values() function only
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.Collection;
 
 /**
  * Implements a map that maps key to value.
+ * A map returned by subMap, headMap, tailMap or descendingMap is a view:
+ * it shares the tree of the map it came from and only sees the keys
+ * within its bounds. keySet, values and entrySet are views as well,
+ * created once per map and backed by the same storage.
+ * 
+ * <p>A map constructed with {@code new Map310<>(true)} keeps its pairs in
+ * a hash table on the key instead (see Hash310): get, put and remove are
+ * then O(1) expected and plain iteration follows the table, which is in
+ * no useful order.
+ * Ordered queries and views still work, through a sorted copy that is
+ * rebuilt after each change to the map.
  * 
  * @param <K> the type of keys (must be comparable)
  * @param <V> the type of values
  */
-class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
+class Map310<K extends Comparable<? super K>,V> implements NavigableMap<K,V> {
 	//********************************************************************************
 	//  DO NOT EDIT ANYTHING IN THIS SECTION (except for fix JavaDocs / style)
 	//********************************************************************************
@@ -87,18 +110,127 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	}
 
 	/**
-	 * Internal storage of the map: BST of pairs.
+	 * Internal storage of the map: BST of pairs, or null if the map is hashed.
+	 */
+	private final WeissBST<Pair> storage;
+	
+	/**
+	 * Internal storage of the map: hash table of pairs by key, or null if
+	 * the map is a tree.
+	 */
+	private final Hash310<K,Pair> table;
+	
+	/**
+	 * Lowest key of the view, or null if unbounded below.
+	 */
+	private final K lo;
+	
+	/**
+	 * Whether lo itself belongs to the view.
+	 */
+	private final boolean loInclusive;
+	
+	/**
+	 * Highest key of the view, or null if unbounded above.
+	 */
+	private final K hi;
+	
+	/**
+	 * Whether hi itself belongs to the view.
+	 */
+	private final boolean hiInclusive;
+	
+	/**
+	 * Whether the view iterates from largest to smallest key.
+	 */
+	private final boolean descending;
+	
+	/**
+	 * Creates the empty pair inserted for a missing key. Kept in a field
+	 * so that lookups do not allocate a new lambda each time.
+	 */
+	private final Function<K,Pair> newPair = k -> new Pair(k, null);
+	
+	/**
+	 * The key view, created on first use.
+	 */
+	private KeySet keySet;
+	
+	/**
+	 * The value view, created on first use.
+	 */
+	private Values values;
+	
+	/**
+	 * The entry view, created on first use.
 	 */
-	private WeissBST<Pair> storage;
-	//NOTE: you may not have any other instance variables, only this given.
+	private EntrySet entrySet;
 			
 	
 	/**
 	* Constructor of Map using BST as internal storage.
 	*/
 	public Map310() {
-		//use BST as internal storage
-		storage = new WeissBST<>();
+		//use a balanced BST as internal storage
+		this(false);
+	}
+	
+	/**
+	* Constructor of Map.
+	*
+	* @param hashed true to keep the pairs in a hash table, for fast lookups
+	* when sorted iteration is rarely needed, false for a tree.
+	*/
+	public Map310(boolean hashed) {
+		this(hashed ? null : new WeissBST<>(true), hashed ? new Hash310<>(Pair::getKey) : null,
+			null, false, null, false, false);
+	}
+	
+	/**
+	* Constructor of a view over a tree or hash table of pairs.
+	*
+	* @param storage the tree holding the pairs, or null if hashed.
+	* @param table the hash table holding the pairs, or null if a tree.
+	* @param lo the lowest key of the view, or null if unbounded.
+	* @param loInclusive whether lo belongs to the view.
+	* @param hi the highest key of the view, or null if unbounded.
+	* @param hiInclusive whether hi belongs to the view.
+	* @param descending whether the view iterates from largest to smallest key.
+	*/
+	private Map310(WeissBST<Pair> storage, Hash310<K,Pair> table, K lo, boolean loInclusive, K hi,
+		boolean hiInclusive, boolean descending) {
+		this.storage = storage;
+		this.table = table;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.descending = descending;
+	}
+	
+	/**
+	* Constructor of Map that bulk-loads parallel arrays of keys and values.
+	* O(n) if the keys are in ascending order, O(n log n) otherwise.
+	*
+	* @param keys the keys, none of them null or repeated.
+	* @param values the value for each key.
+	* @throws IllegalArgumentException if the arrays differ in length, or a key is null or repeated.
+	*/
+	@SuppressWarnings("unchecked")
+	public Map310(K[] keys, V[] values) {
+		this();
+		if(keys.length != values.length)
+			throw new IllegalArgumentException("Keys and values differ in length");
+		
+		//Pair is an inner class of a generic class, so no generic array creation
+		Pair[] pairs = (Pair[])Array.newInstance(Pair.class, keys.length);
+		for(int i = 0; i < keys.length; i++)
+			pairs[i] = (keys[i] == null) ? null : new Pair(keys[i], values[i]);
+		
+		int n = WeissBST.sortDistinct(pairs, pairs.length);
+		if(n != keys.length)
+			throw new IllegalArgumentException("Null or repeated key");
+		storage.build(pairs, n);
 	}
 	
 	
@@ -106,8 +238,17 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	* {@inheritDoc}
 	*/
 	public void clear() {
-		storage.makeEmpty();
-		
+		if(!isView()) {
+			if(table != null)
+				table.makeEmpty();
+			else
+				storage.makeEmpty();
+			return;
+		}
+		for(Iterator<Pair> it = pairs(); it.hasNext(); ) {
+			it.next();
+			it.remove();
+		}
 	}
 	
 	/**
@@ -123,7 +264,11 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	*/
 	public int size() {
 		//return the number of elements in map
-		return storage.size();
+		if(!isView())
+			return (table != null) ? table.size() : storage.size();
+		//O(log n) from the subtree counts: keys below hi minus keys below lo
+		int below = (hi == null) ? tree().size() : countBelow(hi, hiInclusive);
+		return below - ((lo == null) ? 0 : countBelow(lo, !loInclusive));
 	}
 	
 	
@@ -135,7 +280,7 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 		//find what value the given key is mapped to
 		
 		V val;
-		Pair pair = storage.find(new Pair((K)key, null));
+		Pair pair = find(key);
 
 		if (pair!=null)
 			val = pair.getValue();
@@ -149,13 +294,10 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	/**
 	* {@inheritDoc}
 	*/
-	@SuppressWarnings("unchecked")
 	public V remove(Object key) {
 		//remove key from map; return the value it mapped to before removal
-		V currVal = get(key);
-		if (currVal!=null)
-			storage.remove(new Pair((K)key, null));
-		return currVal;
+		Pair pair = removePair(key);
+		return (pair!=null) ? pair.getValue() : null;
 	}
 	
 	/**
@@ -164,19 +306,13 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	public V put(K key, V value) {
 		//associate key with value in map
 		//if not a new key, return its previous associated value
+		if(!inRange(key))
+			throw new IllegalArgumentException("Key out of range: " + key);
 
-		V oldVal;
-		Pair pair = storage.find(new Pair(key, null));
-		
-		if (pair!=null)
-			oldVal = pair.getValue();
-		else
-			oldVal = null;
-		
-		if (oldVal!=null)
-			storage.remove(new Pair(key, null));
-
-		storage.insert(new Pair(key, value));
+		//one walk: update the value in place, or insert a new pair where the walk ended
+		Pair pair = findOrInsert(key);
+		V oldVal = pair.getValue();
+		pair.setValue(value);
 		return oldVal;
 	}
 	
@@ -188,11 +324,168 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	
 	}
 	
+	/**
+	* {@inheritDoc}
+	*/
+	public V getOrDefault(Object key, V defaultValue) {
+		Pair pair = find(key);
+		return (pair!=null && pair.getValue()!=null) ? pair.getValue() : defaultValue;
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public V putIfAbsent(K key, V value) {
+		if(!inRange(key))
+			throw new IllegalArgumentException("Key out of range: " + key);
+		
+		Pair pair = findOrInsert(key);
+		if (pair.getValue()!=null)
+			return pair.getValue();
+		pair.setValue(value);
+		return null;
+	}
+	
+	/**
+	* {@inheritDoc}
+	* A missing key is inserted where the walk ended, so only a null
+	* result, or an exception from the mapping function, costs a second
+	* walk (to take the key back out). The mapping function must not change
+	* this map.
+	*/
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		if (key==null || !inRange(key)) {
+			//nowhere to insert; put refuses any value
+			V value = mappingFunction.apply(key);
+			if (value!=null)
+				put(key, value);
+			return value;
+		}
+		
+		Pair pair = findOrInsert(key);
+		if (pair.getValue()!=null)
+			return pair.getValue();
+		
+		V value;
+		try {
+			value = mappingFunction.apply(key);
+		}
+		catch (RuntimeException | Error e) {
+			//leave the map as it was
+			removePair(key);
+			throw e;
+		}
+		if (value!=null)
+			pair.setValue(value);
+		else
+			removePair(key);
+		return value;
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Pair pair = find(key);
+		if (pair==null || pair.getValue()==null)
+			return null;
+		
+		return update(pair, key, remappingFunction.apply(key, pair.getValue()));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Pair pair = find(key);
+		V value = remappingFunction.apply(key, (pair!=null) ? pair.getValue() : null);
+		return update(pair, key, value);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		if (value==null)
+			throw new NullPointerException();
+		
+		Pair pair = find(key);
+		V oldVal = (pair!=null) ? pair.getValue() : null;
+		return update(pair, key, (oldVal==null) ? value : remappingFunction.apply(oldVal, value));
+	}
+	
+	/**
+	* Looks up the pair of a key without building a probe pair.
+	*
+	* @param key the key to look up.
+	* @return the pair of the key, or null if it is absent or out of range.
+	*/
+	@SuppressWarnings("unchecked")
+	private Pair find(Object key) {
+		if (key==null || !inRange((K)key))
+			return null;
+		if (table!=null)
+			return table.find(key);
+		return storage.find((K)key, Pair::getKey);
+	}
+	
+	/**
+	* Removes the pair of a key in a single walk or probe sequence.
+	*
+	* @param key the key to remove.
+	* @return the removed pair, or null if the key is absent or out of range.
+	*/
+	@SuppressWarnings("unchecked")
+	private Pair removePair(Object key) {
+		if (key==null || !inRange((K)key))
+			return null;
+		return (table!=null) ? table.remove(key) : storage.remove((K)key, Pair::getKey);
+	}
+	
+	/**
+	* Looks up the pair of a key, adding a pair with a null value if the
+	* key is absent, in a single walk or probe sequence.
+	*
+	* @param key the key to look up, within range.
+	* @return the pair of the key.
+	*/
+	private Pair findOrInsert(K key) {
+		if (table!=null)
+			return table.findOrInsert(key, newPair);
+		return storage.findOrInsert(key, Pair::getKey, newPair);
+	}
+	
+	/**
+	* Stores the result of a compute or merge: in place if the key already
+	* has a pair, as a new pair otherwise, and removes the key for null.
+	*
+	* @param pair the current pair of key, or null if there is none.
+	* @param key the key.
+	* @param value the new value, or null to remove the key.
+	* @return the new value.
+	*/
+	private V update(Pair pair, K key, V value) {
+		if (value==null) {
+			if (pair!=null)
+				remove(key);
+		}
+		else if (pair!=null)
+			pair.setValue(value);
+		else
+			put(key, value);
+		return value;
+	}
+	
 	/**
 	* {@inheritDoc}
 	*/
 	public String toString() {
-		return storage.toString();
+		if(lo == null && hi == null && !descending)
+			return tree().toString();
+		StringBuilder sb = new StringBuilder();
+		for(Iterator<Pair> it = pairs(); it.hasNext(); )
+			sb.append(it.next()).append(' ');
+		return sb.toString();
 	}	
 	
 	//********************************************************************************
@@ -221,12 +514,15 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	}
 	
 	/**
-	* Operation not supported: guaranteed to throw an exception.
+	* Returns a view of the pairs of this map, in the same order as keySet().
+	* Setting the value of an entry writes through to the map.
 	*
 	* {@inheritDoc}
 	*/
 	public Set<Map.Entry<K,V>> entrySet() {
-		throw new UnsupportedOperationException();
+		if(entrySet == null)
+			entrySet = new EntrySet();
+		return entrySet;
 	}
 
 
@@ -238,37 +534,765 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 	
 	/**
 	 * Gets all the keys in the map and returns it.
+	 * The set is a view: it follows later changes to the map, and removing
+	 * from it removes from the map. Adding to it is not supported.
 	 * @return Returns a Set of keys contained in this map.
 	 */
 	public Set<K> keySet() {
-		//O(N) where N is the number of <key, value> pairs in map if set operations are O(1)
-		Set<K> set = new Set310<K>();
-
-		if(storage == null || storage.size() == 0)
-			return set;
-		
-		for(Pair pair: storage.values())
-			set.add(pair.key);
-		
-		return set;
+		//O(1): the view is created once and reads the storage directly
+		return navigableKeySet();
 	}
 
 	/**
 	 * Gets all the values in this map and returns it.
+	 * The collection is a view: it follows later changes to the map, and
+	 * removing from it removes from the map. Adding to it is not supported.
 	 * @return Returns a Collection of values contained in this map.
 	 */
 	public Collection<V> values() {
-		//duplicates are possible so use a LinkedList as your return.
-		//O(N) where N is the number of <key, value> pairs in map.
-		LinkedList<V> list = new LinkedList<V>();
-
-		if(storage == null || storage.size() == 0)
-			return list;
+		//duplicates are possible, one value per pair in key order
+		if(values == null)
+			values = new Values();
+		return values;
+	}
 		
-		for(Pair pair: storage.values())
-			list.add(pair.value);
+	//********************************************************************************
+	// NavigableMap: all queries are O(log n) walks of the tree,
+	// views cost O(1) to create and O(log n + k) to iterate.
+	// A hashed map answers them from its sorted copy.
+	//********************************************************************************
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Comparator<? super K> comparator() {
+		return descending ? Collections.reverseOrder() : null;
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public K firstKey() {
+		return keyOrThrow(firstPair());
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public K lastKey() {
+		return keyOrThrow(lastPair());
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> firstEntry() {
+		return entry(firstPair());
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> lastEntry() {
+		return entry(lastPair());
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> pollFirstEntry() {
+		Pair pair = firstPair();
+		if(pair != null)
+			remove(pair.key);
+		return entry(pair);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> pollLastEntry() {
+		Pair pair = lastPair();
+		if(pair != null)
+			remove(pair.key);
+		return entry(pair);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> lowerEntry(K key) {
+		return entry(descending ? above(key, false) : below(key, false));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public K lowerKey(K key) {
+		return keyOf(descending ? above(key, false) : below(key, false));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> floorEntry(K key) {
+		return entry(descending ? above(key, true) : below(key, true));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public K floorKey(K key) {
+		return keyOf(descending ? above(key, true) : below(key, true));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> ceilingEntry(K key) {
+		return entry(descending ? below(key, true) : above(key, true));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public K ceilingKey(K key) {
+		return keyOf(descending ? below(key, true) : above(key, true));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public Map.Entry<K,V> higherEntry(K key) {
+		return entry(descending ? below(key, false) : above(key, false));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public K higherKey(K key) {
+		return keyOf(descending ? below(key, false) : above(key, false));
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public NavigableMap<K,V> descendingMap() {
+		return new Map310<>(storage, table, lo, loInclusive, hi, hiInclusive, !descending);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public NavigableSet<K> navigableKeySet() {
+		if(keySet == null)
+			keySet = new KeySet();
+		return keySet;
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if(fromKey == null || toKey == null) throw new NullPointerException();
+		if(descending)
+			return restrict(toKey, toInclusive, fromKey, fromInclusive);
+		return restrict(fromKey, fromInclusive, toKey, toInclusive);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+		if(toKey == null) throw new NullPointerException();
+		if(descending)
+			return restrict(toKey, inclusive, hi, hiInclusive);
+		return restrict(lo, loInclusive, toKey, inclusive);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+		if(fromKey == null) throw new NullPointerException();
+		if(descending)
+			return restrict(lo, loInclusive, fromKey, inclusive);
+		return restrict(fromKey, inclusive, hi, hiInclusive);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public SortedMap<K,V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public SortedMap<K,V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+	
+	/**
+	* {@inheritDoc}
+	*/
+	public SortedMap<K,V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+	
+	/**
+	* Reports whether this map is a bounded view of a larger tree.
+	*
+	* @return true if the map has a lower or upper bound.
+	*/
+	private boolean isView() {
+		return lo != null || hi != null;
+	}
+	
+	/**
+	* Checks a key against the bounds of the view.
+	*
+	* @param key the key to check.
+	* @return true if key lies within the bounds.
+	*/
+	private boolean inRange(K key) {
+		return !tooLow(key) && !tooHigh(key);
+	}
+	
+	/**
+	* Checks a key against the lower bound of the view.
+	*
+	* @param key the key to check.
+	* @return true if key lies below the lower bound.
+	*/
+	private boolean tooLow(K key) {
+		if(lo == null) return false;
+		int c = key.compareTo(lo);
+		return c < 0 || (c == 0 && !loInclusive);
+	}
+	
+	/**
+	* Checks a key against the upper bound of the view.
+	*
+	* @param key the key to check.
+	* @return true if key lies above the upper bound.
+	*/
+	private boolean tooHigh(K key) {
+		if(hi == null) return false;
+		int c = key.compareTo(hi);
+		return c > 0 || (c == 0 && !hiInclusive);
+	}
+	
+	/**
+	* Counts the keys of the whole tree below key.
+	*
+	* @param key the key to count up to.
+	* @param inclusive whether a key equal to key is counted.
+	* @return the number of keys below (or equal to) key.
+	*/
+	private int countBelow(K key, boolean inclusive) {
+		Pair probe = new Pair(key, null);
+		WeissBST<Pair> tree = tree();
+		int count = tree.rank(probe);
+		if(inclusive && tree.find(probe) != null)
+			count++;
+		return count;
+	}
+	
+	/**
+	* Iterates over the pairs of the view in view order.
+	*
+	* @return an iterator over the pairs within the bounds.
+	*/
+	private Iterator<Pair> pairs() {
+		if(lo == null && hi == null && !descending)
+			return (table != null) ? table.iterator() : storage.iterator();
+		Pair loPair = (lo == null) ? null : new Pair(lo, null);
+		Pair hiPair = (hi == null) ? null : new Pair(hi, null);
+		if(table != null)
+			return table.iterator(loPair, loInclusive, hiPair, hiInclusive, descending);
+		return storage.iterator(loPair, loInclusive, hiPair, hiInclusive, descending);
+	}
+	
+	/**
+	* Returns the tree to answer ordered queries from: the storage, or the
+	* sorted copy of the hash table.
+	*
+	* @return the pairs as a tree.
+	*/
+	private WeissBST<Pair> tree() {
+		return (table != null) ? table.sorted() : storage;
+	}
+	
+	/**
+	* Finds the first pair of the view in view order.
+	*
+	* @return the first pair, or null if the view is empty.
+	*/
+	private Pair firstPair() {
+		return descending ? highest() : lowest();
+	}
+	
+	/**
+	* Finds the last pair of the view in view order.
+	*
+	* @return the last pair, or null if the view is empty.
+	*/
+	private Pair lastPair() {
+		return descending ? lowest() : highest();
+	}
+	
+	/**
+	* Finds the pair with the smallest key of the view.
+	*
+	* @return the pair, or null if the view is empty.
+	*/
+	private Pair lowest() {
+		WeissBST<Pair> tree = tree();
+		Pair pair = (lo == null) ? tree.findMin()
+			: (loInclusive ? tree.ceiling(new Pair(lo, null)) : tree.higher(new Pair(lo, null)));
+		return (pair == null || tooHigh(pair.key)) ? null : pair;
+	}
+	
+	/**
+	* Finds the pair with the largest key of the view.
+	*
+	* @return the pair, or null if the view is empty.
+	*/
+	private Pair highest() {
+		WeissBST<Pair> tree = tree();
+		Pair pair = (hi == null) ? tree.findMax()
+			: (hiInclusive ? tree.floor(new Pair(hi, null)) : tree.lower(new Pair(hi, null)));
+		return (pair == null || tooLow(pair.key)) ? null : pair;
+	}
+	
+	/**
+	* Finds the pair of the view with the closest key above key, in ascending order.
+	*
+	* @param key the key to search from.
+	* @param inclusive whether key itself may be returned.
+	* @return the pair, or null if there is none.
+	*/
+	private Pair above(K key, boolean inclusive) {
+		if(tooLow(key)) return lowest();
+		Pair probe = new Pair(key, null);
+		Pair pair = inclusive ? tree().ceiling(probe) : tree().higher(probe);
+		return (pair == null || tooHigh(pair.key)) ? null : pair;
+	}
+	
+	/**
+	* Finds the pair of the view with the closest key below key, in ascending order.
+	*
+	* @param key the key to search from.
+	* @param inclusive whether key itself may be returned.
+	* @return the pair, or null if there is none.
+	*/
+	private Pair below(K key, boolean inclusive) {
+		if(tooHigh(key)) return highest();
+		Pair probe = new Pair(key, null);
+		Pair pair = inclusive ? tree().floor(probe) : tree().lower(probe);
+		return (pair == null || tooLow(pair.key)) ? null : pair;
+	}
+	
+	/**
+	* Snapshots a pair as an immutable entry.
+	*
+	* @param pair the pair, may be null.
+	* @return the entry, or null if pair is null.
+	*/
+	private Map.Entry<K,V> entry(Pair pair) {
+		return (pair == null) ? null : new AbstractMap.SimpleImmutableEntry<>(pair.key, pair.value);
+	}
+	
+	/**
+	* Gets the key of a pair.
+	*
+	* @param pair the pair, may be null.
+	* @return the key, or null if pair is null.
+	*/
+	private K keyOf(Pair pair) {
+		return (pair == null) ? null : pair.key;
+	}
+	
+	/**
+	* Gets the key of a pair that must exist.
+	*
+	* @param pair the pair, may be null.
+	* @return the key.
+	* @throws NoSuchElementException if pair is null.
+	*/
+	private K keyOrThrow(Pair pair) {
+		if(pair == null) throw new NoSuchElementException();
+		return pair.key;
+	}
+	
+	/**
+	* Creates a view with tighter bounds, in ascending order.
+	*
+	* @param from the new lower bound, or null if unbounded.
+	* @param fromInclusive whether from belongs to the view.
+	* @param to the new upper bound, or null if unbounded.
+	* @param toInclusive whether to belongs to the view.
+	* @return the new view.
+	* @throws IllegalArgumentException if a bound lies outside this view or from is above to.
+	*/
+	private NavigableMap<K,V> restrict(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		if(from != null && (from != lo || fromInclusive != loInclusive) && !inClosedRange(from, fromInclusive))
+			throw new IllegalArgumentException("fromKey out of range: " + from);
+		if(to != null && (to != hi || toInclusive != hiInclusive) && !inClosedRange(to, toInclusive))
+			throw new IllegalArgumentException("toKey out of range: " + to);
+		if(from != null && to != null && from.compareTo(to) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		return new Map310<>(storage, table, from, fromInclusive, to, toInclusive, descending);
+	}
+	
+	/**
+	* Checks that a new bound does not widen the view.
+	*
+	* @param key the bound.
+	* @param inclusive whether the bound is inclusive.
+	* @return true if the bound lies within this view.
+	*/
+	private boolean inClosedRange(K key, boolean inclusive) {
+		if(lo != null) {
+			int c = key.compareTo(lo);
+			if(c < 0 || (c == 0 && inclusive && !loInclusive)) return false;
+		}
+		if(hi != null) {
+			int c = key.compareTo(hi);
+			if(c > 0 || (c == 0 && inclusive && !hiInclusive)) return false;
+		}
+		return true;
+	}
+	
+	//********************************************************************************
+	// Views of the keys, values and pairs: each reads the storage through
+	// the bounds of the map it belongs to and copies nothing.
+	//********************************************************************************
+	
+	/**
+	* Iterator over the pairs of the map that hands out one part of each pair.
+	* Removing through it removes the pair from the map.
+	*
+	* @param <T> the type handed out.
+	*/
+	private class ViewIterator<T> implements Iterator<T> {
+		
+		/**
+		* Iterator over the pairs.
+		*/
+		private final Iterator<Pair> it = pairs();
+		
+		/**
+		* Picks what to hand out from a pair.
+		*/
+		private final Function<Pair, T> part;
+		
+		/**
+		* Constructor.
+		*
+		* @param part picks what to hand out from a pair.
+		*/
+		ViewIterator(Function<Pair, T> part) { this.part = part; }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean hasNext() { return it.hasNext(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public T next() { return part.apply(it.next()); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public void remove() { it.remove(); }
+	}
+	
+	/**
+	* Live view of the keys. Navigation and sub-views delegate to the map,
+	* so they cost the same as the matching map methods.
+	*/
+	private class KeySet extends AbstractSet<K> implements NavigableSet<K> {
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public Iterator<K> iterator() { return new ViewIterator<>(Pair::getKey); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public int size() { return Map310.this.size(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean isEmpty() { return Map310.this.isEmpty(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean contains(Object o) { return find(o) != null; }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean remove(Object o) { return removePair(o) != null; }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public void clear() { Map310.this.clear(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public Comparator<? super K> comparator() { return Map310.this.comparator(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K first() { return firstKey(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K last() { return lastKey(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K lower(K e) { return lowerKey(e); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K floor(K e) { return floorKey(e); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K ceiling(K e) { return ceilingKey(e); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K higher(K e) { return higherKey(e); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K pollFirst() {
+			Pair pair = firstPair();
+			if(pair != null)
+				removePair(pair.key);
+			return keyOf(pair);
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K pollLast() {
+			Pair pair = lastPair();
+			if(pair != null)
+				removePair(pair.key);
+			return keyOf(pair);
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public NavigableSet<K> descendingSet() { return descendingKeySet(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public Iterator<K> descendingIterator() { return descendingKeySet().iterator(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+			return subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+			return headMap(toElement, inclusive).navigableKeySet();
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+			return tailMap(fromElement, inclusive).navigableKeySet();
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public SortedSet<K> subSet(K fromElement, K toElement) { return subSet(fromElement, true, toElement, false); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public SortedSet<K> headSet(K toElement) { return headSet(toElement, false); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public SortedSet<K> tailSet(K fromElement) { return tailSet(fromElement, true); }
+		
+		/**
+		* Lists the keys separated by spaces, like Set310.
+		*
+		* @return the keys in order.
+		*/
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for(K key : this)
+				sb.append(key).append(' ');
+			return sb.toString();
+		}
+	}
+	
+	/**
+	* Live view of the values, in key order.
+	*/
+	private class Values extends AbstractCollection<V> {
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public Iterator<V> iterator() { return new ViewIterator<>(Pair::getValue); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public int size() { return Map310.this.size(); }
 		
-		return list;
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean isEmpty() { return Map310.this.isEmpty(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public void clear() { Map310.this.clear(); }
+	}
+	
+	/**
+	* Live view of the pairs as entries, in key order.
+	*/
+	private class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public Iterator<Map.Entry<K,V>> iterator() { return new ViewIterator<>(Entry::new); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public int size() { return Map310.this.size(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean isEmpty() { return Map310.this.isEmpty(); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean contains(Object o) {
+			if(!(o instanceof Map.Entry)) return false;
+			Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+			Pair pair = find(e.getKey());
+			return pair != null && Objects.equals(pair.value, e.getValue());
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean remove(Object o) {
+			if(!contains(o)) return false;
+			removePair(((Map.Entry<?,?>)o).getKey());
+			return true;
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public void clear() { Map310.this.clear(); }
+	}
+	
+	/**
+	* Entry handed out by the entry view; setValue writes to the pair.
+	*/
+	private class Entry implements Map.Entry<K,V> {
+		
+		/**
+		* The pair in the storage.
+		*/
+		private final Pair pair;
+		
+		/**
+		* Constructor.
+		*
+		* @param pair the pair in the storage.
+		*/
+		Entry(Pair pair) { this.pair = pair; }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public K getKey() { return pair.key; }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public V getValue() { return pair.value; }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public V setValue(V value) {
+			V oldVal = pair.value;
+			pair.setValue(value);
+			return oldVal;
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public boolean equals(Object o) {
+			if(!(o instanceof Map.Entry)) return false;
+			Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+			return pair.key.equals(e.getKey()) && Objects.equals(pair.value, e.getValue());
+		}
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public int hashCode() { return pair.key.hashCode() ^ Objects.hashCode(pair.value); }
+		
+		/**
+		* {@inheritDoc}
+		*/
+		public String toString() { return pair.key + "=" + pair.value; }
 	}
 		
 	//********************************************************************************
@@ -313,14 +1337,98 @@ class Map310<K extends Comparable<? super K>,V> implements Map<K,V> {
 		for (String value: map1.values()){
 			System.out.print(value+" ");
 		}
-		//expected four value: one ten two ten ("ten" must occur twice)
+		//expected four value in key order: one two ten ten ("ten" must occur twice)
 		System.out.println();
 		
 		//uncomment to see map details
-		System.out.println(map1);			
+		System.out.println(map1);
+		
+		//bulk load from unsorted keys
+		Map310<Integer, String> map2 = new Map310<>(new Integer[] {16, 1, 10, 2},
+			new String[] {"ten", "one", "ten", "two"});
+		if (map2.size()==4 && map2.get(1).equals("one") && map2.get(16).equals("ten") &&
+			map2.toString().equals(map1.toString())) {
+			System.out.println("Yay 4");
+		}
+		
+		//navigation and range views
+		NavigableMap<Integer, String> head = map2.headMap(10, true);
+		if (map2.floorKey(9)==2 && map2.ceilingEntry(3).getValue().equals("ten") &&
+			map2.higherKey(16)==null && map2.firstKey()==1 && head.size()==3 &&
+			head.lastKey()==10 && head.get(16)==null && map2.descendingMap().firstKey()==16 &&
+			map2.tailMap(2, false).keySet().size()==2 && map2.descendingKeySet().first()==16) {
+			System.out.println("Yay 5");
+		}
+		
+		//views write through to the map
+		head.put(5, "five");
+		if (map2.get(5).equals("five") && head.pollFirstEntry().getKey()==1 && map2.size()==4 &&
+			head.descendingMap().headMap(2, false).toString().equals("<10,ten> <5,five> ")) {
+			System.out.println("Yay 6");
+		}
+		
+		//in-place updates and compute family
+		Map310<String, Integer> counts = new Map310<>();
+		for (String word : "a b a c b a".split(" "))
+			counts.merge(word, 1, Integer::sum);
+		counts.computeIfAbsent("d", w -> 4);
+		counts.computeIfPresent("c", (w, n) -> null);
+		if (counts.put("a", 30)==3 && counts.get("b")==2 && counts.getOrDefault("c", -1)==-1 &&
+			counts.putIfAbsent("d", 5)==4 && counts.compute("e", (w, n) -> n==null ? 1 : n+1)==1 &&
+			counts.computeIfAbsent("f", w -> null)==null && counts.size()==4 &&
+			computeThrows(counts, "g") && counts.size()==4 && !counts.containsKey("g") &&
+			counts.remove("a")==30 && counts.remove("a")==null) {
+			System.out.println("Yay 7");
+		}
+		
+		//hashed map: same contract, table order for plain iteration
+		Map310<Integer, String> hashed = new Map310<>(true);
+		for (int i = 9; i >= 0; i--)
+			hashed.put(i, "v" + i);
+		if (hashed.put(3, "three").equals("v3") && hashed.get(3).equals("three") &&
+			hashed.remove(4).equals("v4") && !hashed.containsKey(4) && hashed.size() == 9 &&
+			hashed.keySet().contains(9) && !hashed.keySet().contains(4) && hashed.floorKey(4) == 3 &&
+			hashed.headMap(6).size() == 5 && hashed.pollLastEntry().getKey() == 9 &&
+			hashed.descendingMap().firstKey() == 8 && hashed.values().contains("v0") &&
+			hashed.computeIfAbsent(42, k -> null)==null && hashed.computeIfAbsent(4, k -> "four").equals("four") &&
+			hashed.size() == 9) {
+			System.out.println("Yay 8");
+		}
+		
+		//keySet, values and entrySet are live views
+		Map310<Integer, String> live = new Map310<>();
+		Set<Integer> liveKeys = live.keySet();
+		Collection<String> liveValues = live.values();
+		live.put(2, "two");
+		live.put(1, "one");
+		for (Map.Entry<Integer, String> e : live.entrySet())
+			e.setValue(e.getValue().toUpperCase());
+		liveKeys.remove(1);
+		if (liveKeys == live.keySet() && liveKeys.size() == 1 && liveValues.contains("TWO") &&
+			!live.containsKey(1) && live.entrySet().contains(new AbstractMap.SimpleEntry<>(2, "TWO")) &&
+			live.navigableKeySet().headSet(2, true).first() == 2) {
+			System.out.println("Yay 9");
+		}			
 				
 	}
 	
+	/**
+	* Calls computeIfAbsent with a mapping function that throws, for testing.
+	*
+	* @param map the map.
+	* @param key the key to compute.
+	* @return true if the exception came through.
+	*/
+	private static boolean computeThrows(Map310<String, Integer> map, String key) {
+		try {
+			map.computeIfAbsent(key, k -> { throw new IllegalStateException(k); });
+			return false;
+		}
+		catch (IllegalStateException e) {
+			return true;
+		}
+	}
+	
 	
 	
 	
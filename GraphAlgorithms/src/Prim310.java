@@ -0,0 +1,354 @@
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *  Simulation of Prim's algorithm, growing a minimum spanning forest one
+ *  vertex per step. The frontier is an IndexedHeap310 keyed by GraphNode id:
+ *  a vertex enters it with the cost (setCost) of its cheapest edge to the
+ *  tree and has that cost lowered in place when a cheaper edge shows up.
+ *  Vertices already in the tree are marked with setActive. When the
+ *  frontier runs dry, the next vertex outside the tree by id starts a new
+ *  tree, so disconnected graphs get a forest as with Kruskal310.
+ *
+ *  <p>Edges are compared by weight and then id, as GraphEdge.compareTo
+ *  does, so the forest is the one Kruskal310 finds. Nodes and edges are
+ *  coloured with the Kruskal310 colours. Prim's algorithm touches each
+ *  edge twice and keeps at most V vertices in the heap, which suits dense
+ *  graphs better than sorting every edge.
+ *
+ *  <p>computeMinimumSpanningForest runs the same algorithm headless over
+ *  the primitive arrays of a CSRGraph310, with no allocation per step.
+ */
+class Prim310 implements ThreeTenAlg {
+	/**
+	 *  The number of children per heap node. Four keeps the heap shallow
+	 *  for decrease-key while a node's children still share a cache line.
+	 */
+	private static final int ARITY = 4;
+
+	/**
+	 *  The graph the algorithm will run on.
+	 */
+	Graph<GraphNode, GraphEdge> graph;
+
+	/**
+	 *  The vertices next to the tree, by id, keyed by their cheapest edge
+	 *  to it.
+	 */
+	IndexedHeap310 frontier;
+
+	/**
+	 *  The vertices by id.
+	 */
+	private GraphNode[] byId;
+
+	/**
+	 *  The cheapest known edge from each vertex (by id) to the tree.
+	 */
+	private GraphEdge[] cheapest;
+
+	/**
+	 *  The vertices in ascending order of id, for picking new roots.
+	 */
+	private GraphNode[] vertices;
+
+	/**
+	 *  The index in vertices of the next candidate root.
+	 */
+	private int nextRoot;
+
+	/**
+	 *  The number of vertices in the tree.
+	 */
+	private int treeSize;
+
+	/**
+	 *  Whether or not the algorithm has been started.
+	 */
+	private boolean started = false;
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public EdgeType graphEdgeType() {
+		return EdgeType.UNDIRECTED;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public void reset(Graph<GraphNode, GraphEdge> graph) {
+		this.graph = graph;
+		started = false;
+		frontier = null;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public boolean isStarted() {
+		return started;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public void cleanUpLastStep() {
+		// Unused. Required by the interface.
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public void start() {
+		started = true;
+
+		Collection<GraphNode> all = graph.getVertices();
+		vertices = all.toArray(new GraphNode[all.size()]);
+		Arrays.sort(vertices, (a, b) -> Integer.compare(a.getId(), b.getId()));
+		int capacity = (vertices.length == 0) ? 0 : vertices[vertices.length - 1].getId() + 1;
+		byId = new GraphNode[capacity];
+		cheapest = new GraphEdge[capacity];
+		for(GraphNode v : vertices) {
+			byId[v.getId()] = v;
+			v.unsetActive();
+			v.setCost(Integer.MAX_VALUE);
+		}
+		frontier = new IndexedHeap310(capacity, ARITY);
+		nextRoot = 0;
+		treeSize = 0;
+
+		highlightNext();
+	}
+
+	/**
+	 *  Highlights what the next step will add: the cheapest edge to the
+	 *  tree, or the root of a new tree if the frontier is empty.
+	 */
+	public void highlightNext() {
+		int next = frontier.findMin();
+		if(next >= 0)
+			cheapest[next].setColor(Kruskal310.COLOR_HIGHLIGHT);
+		else if(skipToRoot())
+			vertices[nextRoot].setColor(Kruskal310.COLOR_HIGHLIGHT);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public void finish() {
+		//every edge was decided as it was reached; vertices without a selected edge are left
+		for(GraphNode node : vertices)
+			if(node.getColor() != Kruskal310.COLOR_SELECTED)
+				node.setColor(Kruskal310.COLOR_WARNING);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public boolean setupNextStep() {
+		return treeSize < vertices.length;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public void doNextStep() {
+		//take the frontier vertex with the cheapest edge, or start a new tree
+		GraphNode v;
+		if(!frontier.isEmpty()) {
+			v = byId[frontier.removeMin()];
+			GraphEdge edge = cheapest[v.getId()];
+			edge.setColor(Kruskal310.COLOR_SELECTED);
+			graph.getOpposite(v, edge).setColor(Kruskal310.COLOR_SELECTED);
+			v.setColor(Kruskal310.COLOR_SELECTED);
+		}
+		else {
+			skipToRoot();
+			v = vertices[nextRoot++];
+			v.setColor(Kruskal310.COLOR_NONE_NODE); //coloured once an edge is selected
+			v.setCost(0);
+		}
+		v.setActive();
+		treeSize++;
+
+		//offer every edge to a vertex outside the tree; the loser of each comparison is out
+		for(GraphEdge edge : graph.getIncidentEdges(v)) {
+			GraphNode w = graph.getOpposite(v, edge);
+			if(w == v) {
+				edge.setColor(Kruskal310.COLOR_INACTIVE_EDGE);
+				continue;
+			}
+			if(w.isActive())
+				continue;
+			GraphEdge best = cheapest[w.getId()];
+			if(best != null && best.compareTo(edge) < 0) {
+				edge.setColor(Kruskal310.COLOR_INACTIVE_EDGE);
+				continue;
+			}
+			if(best != null)
+				best.setColor(Kruskal310.COLOR_INACTIVE_EDGE);
+			cheapest[w.getId()] = edge;
+			w.setCost(edge.getWeight());
+			if(frontier.contains(w.getId()))
+				frontier.decreaseKey(w.getId(), key(edge.getWeight(), edge.getId()));
+			else
+				frontier.insert(w.getId(), key(edge.getWeight(), edge.getId()));
+		}
+
+		if(setupNextStep())
+			highlightNext();
+	}
+
+	/**
+	 *  Moves nextRoot past vertices already in a tree.
+	 *
+	 *  @return true if there is a vertex left to start a tree from
+	 */
+	private boolean skipToRoot() {
+		while(nextRoot < vertices.length && vertices[nextRoot].isActive())
+			nextRoot++;
+		return nextRoot < vertices.length;
+	}
+
+	/**
+	 *  Packs an edge into a heap key that orders as GraphEdge.compareTo:
+	 *  the weight in the high half, the id (as unsigned) in the low half.
+	 *
+	 *  @param weight the weight
+	 *  @param id the id
+	 *  @return the key
+	 */
+	private static long key(int weight, int id) {
+		return ((long)weight << 32) | ((id - Integer.MIN_VALUE) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 *  Computes a minimum spanning forest of a graph without stepping or
+	 *  colouring anything: a minimum spanning tree of every connected
+	 *  component, the same one Kruskal310 finds. Selected edges are
+	 *  reported in the order Prim's algorithm takes them, tree by tree.
+	 *  A graph that is not already a CSRGraph310 is snapshotted first; after
+	 *  that, the steps only touch the snapshot's arrays and the heap.
+	 *
+	 *  @param graph the graph; vertex ids must not be negative
+	 *  @return the spanning forest
+	 */
+	public static SpanningForest310 computeMinimumSpanningForest(Graph<GraphNode,GraphEdge> graph) {
+		CSRGraph310 csr = (graph instanceof CSRGraph310) ? (CSRGraph310)graph : new CSRGraph310(graph);
+		int n = csr.vertexCount();
+
+		//edge indexes of a snapshot ascend with the ids, so they break ties as the ids do
+		IndexedHeap310 frontier = new IndexedHeap310(n, ARITY);
+		int[] cheapest = new int[n];
+		boolean[] inTree = new boolean[n];
+		int[] root = new int[n];
+		GraphEdge[] selected = new GraphEdge[Math.max(0, n - 1)];
+		int[] selectedEnds = new int[selected.length];
+		int count = 0;
+
+		for(int r = 0; r < n; r++) {
+			if(inTree[r])
+				continue;
+			int v = r;
+			while(true) {
+				inTree[v] = true;
+				root[v] = r;
+				for(int slot = csr.firstSlot(v), end = csr.endSlot(v); slot < end; slot++) {
+					int w = csr.neighborAt(slot);
+					if(inTree[w])
+						continue;
+					long key = ((long)csr.weightAt(slot) << 32) | csr.edgeAt(slot);
+					if(!frontier.contains(w)) {
+						frontier.insert(w, key);
+						cheapest[w] = csr.edgeAt(slot);
+					}
+					else if(key < frontier.keyOf(w)) {
+						frontier.decreaseKey(w, key);
+						cheapest[w] = csr.edgeAt(slot);
+					}
+				}
+				if(frontier.isEmpty())
+					break;
+				v = frontier.removeMin();
+				selected[count] = csr.edge(cheapest[v]);
+				selectedEnds[count++] = csr.vertex(v).getId();
+			}
+		}
+
+		int maxId = (n == 0) ? -1 : csr.vertex(n - 1).getId();
+		int[] rootById = new int[maxId + 1];
+		for(int v = 0; v < n; v++)
+			rootById[csr.vertex(v).getId()] = csr.vertex(root[v]).getId();
+		return new SpanningForest310(selected, selectedEnds, count, id -> rootById[id], csr.getVertices());
+	}
+
+	/**
+	 *  Main method for testing.
+	 *  @param args not used
+	 */
+	public static void main(String[] args) {
+		//a small graph of the size SimGUI draws: two rings with chords and tied weights, and an isolated vertex
+		Graph310 graph = new Graph310();
+		GraphNode[] nodes = new GraphNode[17];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = new GraphNode(i);
+			graph.addVertex(nodes[i]);
+		}
+		int id = 0;
+		for(int r = 0; r < 2; r++) {
+			for(int i = 0; i < 8; i++) {
+				graph.addEdge(new GraphEdge(id++, 1 + (i * 5) % 4), nodes[8 * r + i], nodes[8 * r + (i + 1) % 8]);
+				if(i < 4)
+					graph.addEdge(new GraphEdge(id++, 1 + (i * 3) % 4), nodes[8 * r + i], nodes[8 * r + i + 4]);
+			}
+		}
+
+		Prim310 prim = new Prim310();
+		prim.reset(graph);
+		while(prim.step()) {} //execution of all steps
+
+		//the selected edges are the ones MST310 finds; the isolated vertex is flagged
+		List<GraphEdge> expected = MST310.computeMinimumSpanningForest(graph).edges();
+		boolean same = nodes[16].getColor() == Kruskal310.COLOR_WARNING && prim.frontier.isEmpty();
+		for(GraphEdge e : graph.getEdges())
+			same &= e.getColor() == (expected.contains(e) ? Kruskal310.COLOR_SELECTED : Kruskal310.COLOR_INACTIVE_EDGE);
+		for(int i = 0; i < 16; i++)
+			same &= nodes[i].getColor() == Kruskal310.COLOR_SELECTED && nodes[i].isActive();
+		if(same) {
+			System.out.println("Yay 1");
+		}
+
+		//headless, on the graph and on the snapshot of a grid of tied weights
+		SpanningForest310 mst = computeMinimumSpanningForest(graph);
+		List<GraphEdge> sorted = new ArrayList<>(mst.edges());
+		Collections.sort(sorted);
+		boolean match = sorted.equals(expected) && mst.treeCount() == 3;
+
+		graph = new Graph310();
+		int side = 30;
+		GraphNode[] grid = new GraphNode[side * side];
+		for(int i = 0; i < grid.length; i++)
+			grid[i] = new GraphNode(i);
+		id = 0;
+		for(int i = 0; i < grid.length; i++) {
+			if(i % side + 1 < side)
+				graph.addEdge(new GraphEdge(id++, 1 + i % 3), grid[i], grid[i + 1]);
+			if(i + side < grid.length)
+				graph.addEdge(new GraphEdge(id++, 1 + (i * 7) % 3), grid[i], grid[i + side]);
+		}
+		mst = computeMinimumSpanningForest(graph.snapshot());
+		sorted = new ArrayList<>(mst.edges());
+		Collections.sort(sorted);
+		if(match && sorted.equals(MST310.computeMinimumSpanningForest(graph).edges()) && mst.treeCount() == 1 &&
+			computeMinimumSpanningForest(new Graph310()).treeCount() == 0) {
+			System.out.println("Yay 2");
+		}
+	}
+}
@@ -1,30 +1,147 @@
 //TODO: None!
 
-//This class implements java.util.Set interface. 
-//Check Java API of Set for description of methods implemented.
+//This class implements java.util.NavigableSet interface. 
+//Check Java API of NavigableSet for description of methods implemented.
 
+import java.lang.reflect.Array;
 import java.util.Collection;
-import java.util.Set;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
 import java.util.Iterator;
+import java.util.function.Function;
 
 /**
  * Implements a set for Comparable elements.
+ * A set returned by subSet, headSet, tailSet or descendingSet is a view:
+ * it shares the tree of the set it came from and only sees the elements
+ * within its bounds.
+ * 
+ * <p>A set constructed with {@code new Set310<>(true)} keeps its elements
+ * in a hash table instead (see Hash310): add, contains and remove are then
+ * O(1) expected and plain iteration follows the table, which is in no
+ * useful order. Ordered queries and views still work, through a sorted
+ * copy that is rebuilt after each change to the set. Because plain
+ * iteration is not sorted, bulk operations on a hashed set look elements
+ * up instead of merging.
  * 
  * @param <E> the type of elements maintained by this set
  * @author Y. Zhong
  */
-class Set310<E extends Comparable<? super E>> implements Set<E> {
+class Set310<E extends Comparable<? super E>> implements NavigableSet<E> {
+
+	/**
+	 *  Internal storage of values in set using a balanced binary search tree,
+	 *  or null if the set is hashed.
+	 */
+	private final WeissBST<E> storage;
+
+	/**
+	 *  Internal storage of values in set using a hash table, or null if the
+	 *  set is a tree.
+	 */
+	private final Hash310<E,E> table;
+
+	/**
+	 *  Lowest element of the view, or null if unbounded below.
+	 */
+	private final E lo;
+
+	/**
+	 *  Whether lo itself belongs to the view.
+	 */
+	private final boolean loInclusive;
+
+	/**
+	 *  Highest element of the view, or null if unbounded above.
+	 */
+	private final E hi;
+
+	/**
+	 *  Whether hi itself belongs to the view.
+	 */
+	private final boolean hiInclusive;
+
+	/**
+	 *  Whether the view iterates from largest to smallest.
+	 */
+	private final boolean descending;
+
+	/**
+	 *  Constructs an empty set.
+	 */
+	public Set310() {
+		this(false);
+	}
+
+	/**
+	 *  Constructs an empty set.
+	 *
+	 *  @param hashed true to keep the elements in a hash table, for fast
+	 *  lookups when sorted iteration is rarely needed, false for a tree
+	 */
+	public Set310(boolean hashed) {
+		this(hashed ? null : new WeissBST<>(true), hashed ? new Hash310<>(Function.identity()) : null,
+			null, false, null, false, false);
+	}
+
+	/**
+	 *  Constructs a view over a tree or a hash table.
+	 *
+	 *  @param storage the tree holding the elements, or null if hashed
+	 *  @param table the hash table holding the elements, or null if a tree
+	 *  @param lo the lowest element of the view, or null if unbounded
+	 *  @param loInclusive whether lo belongs to the view
+	 *  @param hi the highest element of the view, or null if unbounded
+	 *  @param hiInclusive whether hi belongs to the view
+	 *  @param descending whether the view iterates from largest to smallest
+	 */
+	private Set310(WeissBST<E> storage, Hash310<E,E> table, E lo, boolean loInclusive, E hi,
+		boolean hiInclusive, boolean descending) {
+		this.storage = storage;
+		this.table = table;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.descending = descending;
+	}
+
+	/**
+	 *  Constructs a set holding the elements of a collection.
+	 *  O(n) if the collection iterates in ascending order (for example
+	 *  another Set310), O(n log n) otherwise.
+	 *
+	 *  @param c the elements to place in the set
+	 */
+	public Set310(Collection<? extends E> c) {
+		this();
+		addAll(c);
+	}
 
 	/**
-	 *  Internal storage of values in set using a binary search tree.
+	 *  Constructs a set holding the elements of an array.
+	 *  O(n) if the array is in ascending order, O(n log n) otherwise.
+	 *
+	 *  @param items the elements to place in the set
 	 */
-	private WeissBST<E> storage = new WeissBST<>();
+	public Set310(E[] items) {
+		this();
+		E[] copy = items.clone();
+		storage.build(copy, WeissBST.sortDistinct(copy, copy.length));
+	}
 	
 	/**
 	 *  {@inheritDoc}
 	 */
 	public boolean add(E e) {		
 		if(e == null) throw new NullPointerException();
+		if(!inRange(e)) throw new IllegalArgumentException("Element out of range: " + e);
+		
+		if (table!=null)
+			return table.add(e);
 		
 		if (storage.find(e)!=null)
 			return false;
@@ -40,24 +157,70 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 	
 	/**
 	 *  {@inheritDoc}
+	 *
+	 *  A few elements, or any number into a hashed set, are inserted one by
+	 *  one; otherwise the elements are sorted (skipped if already in order),
+	 *  merged with the current contents and the tree is rebuilt balanced in
+	 *  one linear pass.
 	 */
+	@SuppressWarnings("unchecked")
 	public boolean addAll(Collection<? extends E> c) {
-		boolean changedSomething = false;
-		
-		for(E e : c) {
-			if(e != null) {
-				changedSomething = add(e) || changedSomething;
+		int size = size();
+		if(c.size() <= size / 8 || isView() || table != null) {
+			boolean changedSomething = false;
+			
+			for(E e : c) {
+				if(e != null) {
+					changedSomething = add(e) || changedSomething;
+				}
 			}
+			
+			return changedSomething;
 		}
 		
-		return changedSomething;
+		//E erases to Comparable, so the array must really be a Comparable[]
+		E[] items = (E[])new Comparable<?>[c.size()];
+		int n = 0;
+		for(E e : c)
+			items[n++] = e;
+		n = WeissBST.sortDistinct(items, n);
+		if(size == 0) {
+			storage.build(items, n);
+			return n > 0;
+		}
+		
+		E[] merged = (E[])new Comparable<?>[size + n];
+		int count = 0;
+		int i = 0;
+		for(E e : storage) {
+			while(i < n && items[i].compareTo(e) < 0)
+				merged[count++] = items[i++];
+			if(i < n && items[i].compareTo(e) == 0)
+				i++; //already in the set
+			merged[count++] = e;
+		}
+		while(i < n)
+			merged[count++] = items[i++];
+		
+		storage.build(merged, count);
+		return count > size;
 	}
 
 	/**
 	 *  {@inheritDoc}
 	 */
 	public void clear() {
-		storage.makeEmpty();
+		if(!isView()) {
+			if(table != null)
+				table.makeEmpty();
+			else
+				storage.makeEmpty();
+			return;
+		}
+		for(Iterator<E> it = iterator(); it.hasNext(); ) {
+			it.next();
+			it.remove();
+		}
 	}
 
 	/**
@@ -66,7 +229,9 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 	@SuppressWarnings("unchecked")
 	public boolean contains(Object o) {
 
-		return storage.find((E)o) !=null;
+		if (table!=null)
+			return inRange((E)o) && table.find(o) !=null;
+		return inRange((E)o) && storage.find((E)o) !=null;
 	
 	}
 
@@ -82,7 +247,11 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 	 */
 	@SuppressWarnings("unchecked")
 	public boolean remove(Object o) {
-		if (o==null || storage.find((E)o)==null)
+		if (o==null || !inRange((E)o))
+			return false;
+		if (table!=null)
+			return table.remove(o)!=null;
+		if (storage.find((E)o)==null)
 			return false;
 			
 		try{
@@ -98,7 +267,11 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 	 *  {@inheritDoc}
 	 */
 	public int size() {
-		return storage.size();
+		if(!isView())
+			return (table != null) ? table.size() : storage.size();
+		//O(log n) from the subtree counts: elements below hi minus elements below lo
+		int below = (hi == null) ? tree().size() : countBelow(hi, hiInclusive);
+		return below - ((lo == null) ? 0 : countBelow(lo, !loInclusive));
 	}
 
 	
@@ -108,7 +281,7 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 	public Object[] toArray() {
 		Object[] ret = new Object[size()];
 		int i=0;
-		for (E value: storage.values()){
+		for (E value: this){
 			ret[i++] = value;
 		}
 		return ret;
@@ -119,51 +292,581 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 	 *  {@inheritDoc}
 	 */
 	public String toString(){
-		return storage.toString();
+		if(lo == null && hi == null && !descending)
+			return tree().toString();
+		StringBuilder sb = new StringBuilder();
+		for(E value: this)
+			sb.append(value).append(' ');
+		return sb.toString();
 	}
 
 	/**
 	 *  {@inheritDoc}
 	 */
 	public Iterator<E> iterator() {
-		return storage.values().iterator();
+		if(lo == null && hi == null && !descending)
+			return (table != null) ? table.iterator() : storage.iterator();
+		return rangeIterator(descending);
+	}
+
+	//--------------------------------------------------------
+	// NavigableSet: all queries are O(log n) walks of the tree,
+	// views cost O(1) to create and O(log n + k) to iterate.
+	// A hashed set answers them from its sorted copy.
+	//--------------------------------------------------------
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public Comparator<? super E> comparator() {
+		return descending ? Collections.reverseOrder() : null;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E first() {
+		E e = descending ? highest() : lowest();
+		if(e == null) throw new NoSuchElementException();
+		return e;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E last() {
+		E e = descending ? lowest() : highest();
+		if(e == null) throw new NoSuchElementException();
+		return e;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E lower(E e) {
+		return descending ? above(e, false) : below(e, false);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E floor(E e) {
+		return descending ? above(e, true) : below(e, true);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E ceiling(E e) {
+		return descending ? below(e, true) : above(e, true);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E higher(E e) {
+		return descending ? below(e, false) : above(e, false);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E pollFirst() {
+		E e = descending ? highest() : lowest();
+		if(e != null) remove(e);
+		return e;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public E pollLast() {
+		E e = descending ? lowest() : highest();
+		if(e != null) remove(e);
+		return e;
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public NavigableSet<E> descendingSet() {
+		return new Set310<>(storage, table, lo, loInclusive, hi, hiInclusive, !descending);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public Iterator<E> descendingIterator() {
+		return rangeIterator(!descending);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+		if(fromElement == null || toElement == null) throw new NullPointerException();
+		if(descending)
+			return restrict(toElement, toInclusive, fromElement, fromInclusive);
+		return restrict(fromElement, fromInclusive, toElement, toInclusive);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+		if(toElement == null) throw new NullPointerException();
+		if(descending)
+			return restrict(toElement, inclusive, hi, hiInclusive);
+		return restrict(lo, loInclusive, toElement, inclusive);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+		if(fromElement == null) throw new NullPointerException();
+		if(descending)
+			return restrict(lo, loInclusive, fromElement, inclusive);
+		return restrict(fromElement, inclusive, hi, hiInclusive);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public SortedSet<E> subSet(E fromElement, E toElement) {
+		return subSet(fromElement, true, toElement, false);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public SortedSet<E> headSet(E toElement) {
+		return headSet(toElement, false);
+	}
+
+	/**
+	 *  {@inheritDoc}
+	 */
+	public SortedSet<E> tailSet(E fromElement) {
+		return tailSet(fromElement, true);
+	}
+
+	/**
+	 *  Returns the tree to answer ordered queries from: the storage, or
+	 *  the sorted copy of the hash table.
+	 *
+	 *  @return the elements as a tree
+	 */
+	private WeissBST<E> tree() {
+		return (table != null) ? table.sorted() : storage;
+	}
+
+	/**
+	 *  Iterates over the elements of the view in order.
+	 *
+	 *  @param descending whether to iterate from largest to smallest
+	 *  @return an iterator over the view
+	 */
+	private Iterator<E> rangeIterator(boolean descending) {
+		if(table != null)
+			return table.iterator(lo, loInclusive, hi, hiInclusive, descending);
+		return storage.iterator(lo, loInclusive, hi, hiInclusive, descending);
+	}
+
+	/**
+	 *  Reports whether this set is a bounded view of a larger tree.
+	 *
+	 *  @return true if the set has a lower or upper bound
+	 */
+	private boolean isView() {
+		return lo != null || hi != null;
+	}
+
+	/**
+	 *  Checks an element against the bounds of the view.
+	 *
+	 *  @param e the element to check
+	 *  @return true if e lies within the bounds
+	 */
+	private boolean inRange(E e) {
+		return !tooLow(e) && !tooHigh(e);
+	}
+
+	/**
+	 *  Checks an element against the lower bound of the view.
+	 *
+	 *  @param e the element to check
+	 *  @return true if e lies below the lower bound
+	 */
+	private boolean tooLow(E e) {
+		if(lo == null) return false;
+		int c = e.compareTo(lo);
+		return c < 0 || (c == 0 && !loInclusive);
+	}
+
+	/**
+	 *  Checks an element against the upper bound of the view.
+	 *
+	 *  @param e the element to check
+	 *  @return true if e lies above the upper bound
+	 */
+	private boolean tooHigh(E e) {
+		if(hi == null) return false;
+		int c = e.compareTo(hi);
+		return c > 0 || (c == 0 && !hiInclusive);
+	}
+
+	/**
+	 *  Counts the elements of the whole tree below x.
+	 *
+	 *  @param x the element to count up to
+	 *  @param inclusive whether an element equal to x is counted
+	 *  @return the number of elements below (or equal to) x
+	 */
+	private int countBelow(E x, boolean inclusive) {
+		WeissBST<E> tree = tree();
+		int count = tree.rank(x);
+		if(inclusive && tree.find(x) != null)
+			count++;
+		return count;
+	}
+
+	/**
+	 *  Finds the smallest element of the view, in ascending order.
+	 *
+	 *  @return the smallest element, or null if the view is empty
+	 */
+	private E lowest() {
+		WeissBST<E> tree = tree();
+		E e = (lo == null) ? tree.findMin()
+			: (loInclusive ? tree.ceiling(lo) : tree.higher(lo));
+		return (e == null || tooHigh(e)) ? null : e;
+	}
+
+	/**
+	 *  Finds the largest element of the view, in ascending order.
+	 *
+	 *  @return the largest element, or null if the view is empty
+	 */
+	private E highest() {
+		WeissBST<E> tree = tree();
+		E e = (hi == null) ? tree.findMax()
+			: (hiInclusive ? tree.floor(hi) : tree.lower(hi));
+		return (e == null || tooLow(e)) ? null : e;
+	}
+
+	/**
+	 *  Finds the closest element of the view above e, in ascending order.
+	 *
+	 *  @param e the element to search from
+	 *  @param inclusive whether e itself may be returned
+	 *  @return the closest element, or null if there is none
+	 */
+	private E above(E e, boolean inclusive) {
+		if(tooLow(e)) return lowest();
+		E r = inclusive ? tree().ceiling(e) : tree().higher(e);
+		return (r == null || tooHigh(r)) ? null : r;
+	}
+
+	/**
+	 *  Finds the closest element of the view below e, in ascending order.
+	 *
+	 *  @param e the element to search from
+	 *  @param inclusive whether e itself may be returned
+	 *  @return the closest element, or null if there is none
+	 */
+	private E below(E e, boolean inclusive) {
+		if(tooHigh(e)) return highest();
+		E r = inclusive ? tree().floor(e) : tree().lower(e);
+		return (r == null || tooLow(r)) ? null : r;
+	}
+
+	/**
+	 *  Creates a view with tighter bounds, in ascending order.
+	 *
+	 *  @param from the new lower bound, or null if unbounded
+	 *  @param fromInclusive whether from belongs to the view
+	 *  @param to the new upper bound, or null if unbounded
+	 *  @param toInclusive whether to belongs to the view
+	 *  @return the new view
+	 *  @throws IllegalArgumentException if a bound lies outside this view or from is above to
+	 */
+	private NavigableSet<E> restrict(E from, boolean fromInclusive, E to, boolean toInclusive) {
+		if(from != null && (from != lo || fromInclusive != loInclusive) && !inClosedRange(from, fromInclusive))
+			throw new IllegalArgumentException("fromElement out of range: " + from);
+		if(to != null && (to != hi || toInclusive != hiInclusive) && !inClosedRange(to, toInclusive))
+			throw new IllegalArgumentException("toElement out of range: " + to);
+		if(from != null && to != null && from.compareTo(to) > 0)
+			throw new IllegalArgumentException("fromElement > toElement");
+		return new Set310<>(storage, table, from, fromInclusive, to, toInclusive, descending);
+	}
+
+	/**
+	 *  Checks that a new bound does not widen the view.
+	 *
+	 *  @param e the bound
+	 *  @param inclusive whether the bound is inclusive
+	 *  @return true if the bound lies within this view
+	 */
+	private boolean inClosedRange(E e, boolean inclusive) {
+		if(lo != null) {
+			int c = e.compareTo(lo);
+			if(c < 0 || (c == 0 && inclusive && !loInclusive)) return false;
+		}
+		if(hi != null) {
+			int c = e.compareTo(hi);
+			if(c > 0 || (c == 0 && inclusive && !hiInclusive)) return false;
+		}
+		return true;
 	}
 
 	
+	//--------------------------------------------------------
+	// Set algebra: when both sides are trees, they are walked
+	// together in ascending order, O(n + m) in total.
+	//--------------------------------------------------------
+
 	/**
-	* Operation not supported: guaranteed to throw an exception.
+	*  {@inheritDoc}
 	*
-	* {@inheritDoc}
+	*  Against another tree-backed Set310 the two sets are merged in
+	*  O(n + m) and this set is rebuilt; a few elements are removed one by
+	*  one, and anything else is checked with c.contains.
 	*/
 	public boolean removeAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		if(c.size() <= size() / 8 && sortedTree(c) == null) {
+			boolean changedSomething = false;
+			for(Object o : c)
+				changedSomething = remove(o) || changedSomething;
+			return changedSomething;
+		}
+		return filter(c, false);
 	}
 
 	/**
-	* Operation not supported: guaranteed to throw an exception.
+	*  {@inheritDoc}
 	*
-	* {@inheritDoc}
+	*  Against another tree-backed Set310 the two sets are merged in
+	*  O(n + m) and this set is rebuilt; anything else is checked with
+	*  c.contains.
 	*/
 	public boolean retainAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		return filter(c, true);
 	}
 
 	/**
-	* Operation not supported: guaranteed to throw an exception.
-	*
-	* {@inheritDoc}
+	*  {@inheritDoc}
 	*/
-	public <E> E[] toArray(E[] a) {
-		throw new UnsupportedOperationException();
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		int size = size();
+		T[] ret = (a.length >= size) ? a : (T[])Array.newInstance(a.getClass().getComponentType(), size);
+		int i = 0;
+		for (E value: this){
+			ret[i++] = (T)value;
+		}
+		if(ret.length > size)
+			ret[size] = null;
+		return ret;
 	}
 
 	/**
-	* Operation not supported: guaranteed to throw an exception.
+	*  {@inheritDoc}
 	*
-	* {@inheritDoc}
+	*  O(n + m) against another tree-backed Set310.
 	*/
 	public boolean containsAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		Set310<E> other = sortedTree(c);
+		if(other != null)
+			return merge(this, other, false, true, false, null) == other.size();
+		for(Object o : c) {
+			if(!contains(o))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	*  Returns the elements in either set as a new set, in O(n + m).
+	*
+	*  @param <E> the type of elements
+	*  @param a the first set
+	*  @param b the second set
+	*  @return a new set holding the union
+	*/
+	public static <E extends Comparable<? super E>> Set310<E> union(Set310<E> a, Set310<E> b) {
+		E[] items = newArray(a.size() + b.size());
+		return built(items, merge(a, b, true, true, true, items));
+	}
+
+	/**
+	*  Returns the elements in both sets as a new set, in O(n + m).
+	*
+	*  @param <E> the type of elements
+	*  @param a the first set
+	*  @param b the second set
+	*  @return a new set holding the intersection
+	*/
+	public static <E extends Comparable<? super E>> Set310<E> intersection(Set310<E> a, Set310<E> b) {
+		E[] items = newArray(Math.min(a.size(), b.size()));
+		return built(items, merge(a, b, false, true, false, items));
+	}
+
+	/**
+	*  Returns the elements of a that are not in b as a new set, in O(n + m).
+	*
+	*  @param <E> the type of elements
+	*  @param a the set to take elements from
+	*  @param b the set of elements to leave out
+	*  @return a new set holding the difference
+	*/
+	public static <E extends Comparable<? super E>> Set310<E> difference(Set310<E> a, Set310<E> b) {
+		E[] items = newArray(a.size());
+		return built(items, merge(a, b, true, false, false, items));
+	}
+
+	/**
+	*  Counts the elements in both sets without building the intersection.
+	*  Two trees are merged in O(n + m); if either set is hashed, the
+	*  smaller one is looked up in the other instead.
+	*
+	*  @param <E> the type of elements
+	*  @param a the first set
+	*  @param b the second set
+	*  @return the size of the intersection
+	*/
+	public static <E extends Comparable<? super E>> int intersectionSize(Set310<E> a, Set310<E> b) {
+		if(a.table == null && b.table == null)
+			return merge(a, b, false, true, false, null);
+		if(a.size() > b.size()) {
+			Set310<E> t = a;
+			a = b;
+			b = t;
+		}
+		int count = 0;
+		for(E e : a) {
+			if(b.contains(e))
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	*  Walks two sets in ascending order together and keeps the elements
+	*  found only in a, in both, or only in b, as asked.
+	*
+	*  @param <E> the type of elements
+	*  @param a the first set
+	*  @param b the second set
+	*  @param onlyA whether to keep elements found only in a
+	*  @param both whether to keep elements found in both
+	*  @param onlyB whether to keep elements found only in b
+	*  @param out receives the kept elements in ascending order, or null to only count them
+	*  @return the number of elements kept
+	*/
+	private static <E extends Comparable<? super E>> int merge(Set310<E> a, Set310<E> b,
+		boolean onlyA, boolean both, boolean onlyB, E[] out) {
+		Iterator<E> i = a.ascending();
+		Iterator<E> j = b.ascending();
+		E x = i.hasNext() ? i.next() : null;
+		E y = j.hasNext() ? j.next() : null;
+		int n = 0;
+		while(x != null || y != null) {
+			int c = (x == null) ? 1 : (y == null) ? -1 : x.compareTo(y);
+			boolean keep = (c < 0) ? onlyA : (c > 0) ? onlyB : both;
+			if(keep) {
+				if(out != null)
+					out[n] = (c <= 0) ? x : y;
+				n++;
+			}
+			if(c <= 0)
+				x = i.hasNext() ? i.next() : null;
+			if(c >= 0)
+				y = j.hasNext() ? j.next() : null;
+		}
+		return n;
+	}
+
+	/**
+	*  Keeps or drops the elements of this set that are in a collection.
+	*
+	*  @param c the collection to test against
+	*  @param keepCommon true to keep only the common elements, false to drop them
+	*  @return true if the set changed
+	*/
+	private boolean filter(Collection<?> c, boolean keepCommon) {
+		Set310<E> other = sortedTree(c);
+		if(other != null && !isView()) {
+			int size = size();
+			E[] kept = newArray(size);
+			int n = merge(this, other, !keepCommon, keepCommon, false, kept);
+			if(n == size)
+				return false;
+			storage.build(kept, n);
+			return true;
+		}
+		
+		boolean changedSomething = false;
+		for(Iterator<E> it = iterator(); it.hasNext(); ) {
+			if(c.contains(it.next()) != keepCommon) {
+				it.remove();
+				changedSomething = true;
+			}
+		}
+		return changedSomething;
+	}
+
+	/**
+	*  Checks whether a collection can be merged with this set: both must
+	*  be tree-backed Set310s, so that both iterate in ascending order cheaply.
+	*
+	*  @param c the collection
+	*  @return c as a set, or null if it cannot be merged
+	*/
+	@SuppressWarnings("unchecked")
+	private Set310<E> sortedTree(Collection<?> c) {
+		if(table == null && c instanceof Set310 && ((Set310<?>)c).table == null)
+			return (Set310<E>)c;
+		return null;
+	}
+
+	/**
+	*  Iterates over the elements of the view in ascending order, whatever
+	*  the order of the view.
+	*
+	*  @return an ascending iterator
+	*/
+	private Iterator<E> ascending() {
+		if(table == null && !isView())
+			return storage.iterator();
+		return rangeIterator(false);
+	}
+
+	/**
+	*  Creates an array to hold elements.
+	*
+	*  @param <E> the type of elements
+	*  @param n the length
+	*  @return the new array
+	*/
+	@SuppressWarnings("unchecked")
+	private static <E extends Comparable<? super E>> E[] newArray(int n) {
+		//E erases to Comparable, so the array must really be a Comparable[]
+		return (E[])new Comparable<?>[n];
+	}
+
+	/**
+	*  Creates a set from sorted, distinct elements.
+	*
+	*  @param <E> the type of elements
+	*  @param items the elements in ascending order
+	*  @param n the number of elements to use
+	*  @return the new set
+	*/
+	private static <E extends Comparable<? super E>> Set310<E> built(E[] items, int n) {
+		Set310<E> set = new Set310<>();
+		set.storage.build(items, n);
+		return set;
 	}
 	
 	//--------------------------------------------------------
@@ -198,6 +901,15 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 			System.out.println("Yay 3");
 		}
 		
+		//bulk merge into a non-empty set, and bulk constructors
+		Set310<Integer> set3 = new Set310<>(new Integer[] {87, -100, 5, 5, 1000});
+		if(set3.size() == 4 && set.addAll(set3) && !set.addAll(set3) && set.size() == 14 &&
+			set.contains(5) && set.contains(1000) && new Set310<>(set).size() == 14) {
+			System.out.println("Yay 4");
+		}
+		set.remove(5);
+		set.remove(1000);
+		
 		//iterator
 		for (Integer num: set){
 			System.out.print(num+" ");
@@ -206,6 +918,59 @@ class Set310<E extends Comparable<? super E>> implements Set<E> {
 		// -100 -83 -66 -49 -32 -15 2 19 36 53 70 87 
 		
 		System.out.println();
+		
+		//navigation and range views
+		NavigableSet<Integer> mid = set.subSet(-40, true, 40, false);
+		if(set.floor(0) == -15 && set.ceiling(0) == 2 && set.lower(2) == -15 && set.higher(87) == null &&
+			set.first() == -100 && set.last() == 87 && mid.size() == 5 && mid.first() == -32 &&
+			mid.toString().equals("-32 -15 2 19 36 ") && set.headSet(19).size() == 7 &&
+			set.tailSet(53, false).size() == 2 && set.descendingSet().first() == 87 &&
+			set.descendingSet().headSet(53, true).toString().equals("87 70 53 ")) {
+			System.out.println("Yay 5");
+		}
+		
+		//views write through to the set
+		boolean outOfRange = false;
+		try {
+			mid.add(40);
+		} catch(IllegalArgumentException ex) {
+			outOfRange = true;
+		}
+		if(mid.add(0) && set.contains(0) && mid.pollFirst() == -32 && !set.contains(-32) &&
+			outOfRange && mid.descendingIterator().next() == 36 && set.size() == 12) {
+			System.out.println("Yay 6");
+		}
+		
+		//hashed set: same contract, table order for plain iteration
+		Set310<Integer> hashed = new Set310<>(true);
+		for(int i = 9; i >= 0; i--) hashed.add(i);
+		int sum = 0;
+		for(Integer num : hashed) sum += num;
+		if(!hashed.add(3) && hashed.remove(3) && !hashed.contains(3) && hashed.size() == 9 &&
+			sum == 45 && hashed.floor(3) == 2 &&
+			hashed.headSet(5).size() == 4 && hashed.descendingSet().first() == 9 &&
+			hashed.pollLast() == 9 && hashed.subSet(2, 8).toString().equals("2 4 5 6 7 ")) {
+			System.out.println("Yay 7");
+		}
+		
+		//set algebra
+		Set310<Integer> evens = new Set310<>();
+		Set310<Integer> threes = new Set310<>();
+		for(int i = 0; i < 30; i++) {
+			if(i % 2 == 0) evens.add(i);
+			if(i % 3 == 0) threes.add(i);
+		}
+		Set310<Integer> sixes = Set310.intersection(evens, threes);
+		Set310<Integer> both = new Set310<>(evens);
+		Set310<Integer> rest = new Set310<>(evens);
+		if(sixes.toString().equals("0 6 12 18 24 ") && Set310.union(evens, threes).size() == 20 &&
+			Set310.difference(threes, evens).toString().equals("3 9 15 21 27 ") &&
+			Set310.intersectionSize(evens, threes) == 5 && Set310.intersectionSize(hashed, evens) == 5 &&
+			evens.containsAll(sixes) && !sixes.containsAll(evens) && both.retainAll(threes) &&
+			both.toString().equals(sixes.toString()) && rest.removeAll(threes) && rest.size() == 10 &&
+			evens.toArray(new Integer[0]).length == 15 && evens.headSet(6).toArray(new Integer[5])[3] == null) {
+			System.out.println("Yay 8");
+		}
 	}
 	
 	
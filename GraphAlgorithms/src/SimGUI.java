@@ -44,9 +44,11 @@ import java.awt.event.ActionEvent;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JButton;
+import javax.swing.ButtonGroup;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JRadioButtonMenuItem;
 
 /**
  *  GUI for graph interactions.
@@ -164,6 +166,30 @@ class SimGUI {
 		simMenu.add(exit);
 		menuBar.add(simMenu);
 		
+		//algorithm options
+		JMenu algMenu = new JMenu("Algorithm");
+		algMenu.setPreferredSize(new Dimension(80,20)); // Change the size 
+		ButtonGroup algGroup = new ButtonGroup();
+		
+		JRadioButtonMenuItem kruskal = new JRadioButtonMenuItem("Kruskal", alg instanceof Kruskal310);
+		kruskal.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent event) {
+				if(!(alg instanceof Kruskal310)) switchAlg(new Kruskal310());
+			}
+		});
+		algGroup.add(kruskal);
+		algMenu.add(kruskal);
+		
+		JRadioButtonMenuItem prim = new JRadioButtonMenuItem("Prim", alg instanceof Prim310);
+		prim.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent event) {
+				if(!(alg instanceof Prim310)) switchAlg(new Prim310());
+			}
+		});
+		algGroup.add(prim);
+		algMenu.add(prim);
+		menuBar.add(algMenu);
+		
 		//graph editing options
 		JMenu modeMenu = gm.getModeMenu();
 		modeMenu.setText("Mode");
@@ -458,6 +484,28 @@ class SimGUI {
 		makeAlgPanels();
 	}
 	
+	/**
+	 *  Switch to another algorithm on the same graph, clearing the
+	 *  colors the last run left behind.
+	 *  
+	 *  @param next the algorithm to run from now on
+	 */
+	public void switchAlg(ThreeTenAlg next) {
+		playing = false; //a running timer stops itself on its next tick
+		alg = next;
+		
+		for(GraphNode v : graph.getVertices())
+			v.setColor(Kruskal310.COLOR_NONE_NODE);
+		for(GraphEdge e : graph.getEdges())
+			e.setColor(Kruskal310.COLOR_NONE_EDGE);
+		alg.reset(graph);
+		
+		makeGraphPanel();
+		makeMenu();
+		makeBottomButtons();
+		makeAlgPanels();
+	}
+	
 	/**
 	 *  A main method to run the simulation with GUI.
 	 *  
@@ -531,23 +579,32 @@ class SimGUI {
 			@Override
 			public void paintComponent(Graphics g) {
 				super.paintComponent(g);
-				if(!(alg instanceof Kruskal310)) return;
+				if(!(alg instanceof Kruskal310) && !(alg instanceof Prim310)) return;
 				
-				Kruskal310 kalg = (Kruskal310) alg;
 				Graphics2D g2 = (Graphics2D)g;
 				
 				g2.setFont(new Font("Courier New", Font.BOLD, 12));
 				g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 				
 				StringBuilder sb = new StringBuilder();
-				sb.append("Sorted Edges: ");
 				
 				int shiftAmount = 20;
 				int maxDisplay = 7;
 				int i = 0;
 				
-				if(kalg.pqueue != null) {
-					sb.append(kalg.pqueue.toString());
+				if(alg instanceof Kruskal310) {
+					Kruskal310 kalg = (Kruskal310) alg;
+					sb.append("Sorted Edges: ");
+					if(kalg.pqueue != null) {
+						sb.append(kalg.pqueue.smallest(maxDisplay)); //only the top of the heap, not a full sort
+					}
+				}
+				else {
+					Prim310 palg = (Prim310) alg;
+					sb.append("Frontier Nodes: ");
+					if(palg.frontier != null) {
+						sb.append(palg.frontier.smallest(maxDisplay)); //only the top of the heap, not a full sort
+					}
 				}
 				g2.drawString(sb.toString(), shiftAmount, shiftAmount);
 			}
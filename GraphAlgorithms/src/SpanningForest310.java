@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A minimum spanning forest, as found by MST310 or Boruvka310: the
+ * selected edges in the order they were chosen, their total weight, and
+ * the same edges grouped into one tree per connected component. A vertex
+ * without edges is a tree of its own, with no edges.
+ *
+ * <p>Trees are numbered 0..treeCount()-1 and vertices are mapped to their
+ * tree through an int array indexed by vertex id. The forest is a snapshot
+ * and does not follow later changes to the graph.
+ */
+class SpanningForest310 {
+
+	/**
+	 * The selected edges, in the order they were chosen.
+	 */
+	private final GraphEdge[] edges;
+
+	/**
+	 * The selected edges grouped by tree.
+	 */
+	private final GraphEdge[] byTree;
+
+	/**
+	 * Where the edges of each tree start in byTree; treeStart[treeCount] is
+	 * the number of edges.
+	 */
+	private final int[] treeStart;
+
+	/**
+	 * The total weight of each tree.
+	 */
+	private final long[] treeWeights;
+
+	/**
+	 * The tree of each vertex id, or -1.
+	 */
+	private final int[] treeById;
+
+	/**
+	 * The total weight of the forest.
+	 */
+	private final long totalWeight;
+
+	/**
+	 * Groups the edges an algorithm selected into trees.
+	 *
+	 * @param selected the selected edges, in the order they were chosen
+	 * @param ends an endpoint id of each selected edge
+	 * @param count the number of selected edges
+	 * @param rootOf finds the root of a vertex id in a union-find forest of the selected edges
+	 * @param vertices all vertices of the graph
+	 */
+	SpanningForest310(GraphEdge[] selected, int[] ends, int count, IntUnaryOperator rootOf, Collection<GraphNode> vertices) {
+		edges = Arrays.copyOf(selected, count);
+
+		int maxId = -1;
+		for(GraphNode v : vertices)
+			maxId = Math.max(maxId, v.getId());
+		treeById = new int[maxId + 1];
+		Arrays.fill(treeById, -1);
+		int[] treeOfRoot = new int[maxId + 1];
+		Arrays.fill(treeOfRoot, -1);
+		int trees = 0;
+		for(GraphNode v : vertices) {
+			int root = rootOf.applyAsInt(v.getId());
+			if(treeOfRoot[root] < 0)
+				treeOfRoot[root] = trees++;
+			treeById[v.getId()] = treeOfRoot[root];
+		}
+
+		//a counting sort of the edges by tree
+		treeStart = new int[trees + 1];
+		treeWeights = new long[trees];
+		long total = 0;
+		for(int i = 0; i < count; i++) {
+			int t = treeById[ends[i]];
+			treeStart[t + 1]++;
+			treeWeights[t] += edges[i].getWeight();
+			total += edges[i].getWeight();
+		}
+		for(int t = 0; t < trees; t++)
+			treeStart[t + 1] += treeStart[t];
+		int[] fill = Arrays.copyOf(treeStart, trees);
+		byTree = new GraphEdge[count];
+		for(int i = 0; i < count; i++)
+			byTree[fill[treeById[ends[i]]]++] = edges[i];
+		totalWeight = total;
+	}
+
+	/**
+	 * Reports the selected edges.
+	 *
+	 * @return a read-only list of the edges, in the order they were chosen
+	 */
+	public List<GraphEdge> edges() {
+		return Collections.unmodifiableList(Arrays.asList(edges));
+	}
+
+	/**
+	 * Reports the total weight of the forest.
+	 *
+	 * @return the sum of the weights of the selected edges
+	 */
+	public long totalWeight() {
+		return totalWeight;
+	}
+
+	/**
+	 * Reports the number of trees, one per connected component.
+	 *
+	 * @return the number of trees
+	 */
+	public int treeCount() {
+		return treeWeights.length;
+	}
+
+	/**
+	 * Reports the edges of one tree.
+	 *
+	 * @param tree the tree
+	 * @return a read-only list of its edges, in the order they were chosen
+	 * @throws IndexOutOfBoundsException if there is no such tree
+	 */
+	public List<GraphEdge> tree(int tree) {
+		checkTree(tree);
+		return Collections.unmodifiableList(Arrays.asList(byTree).subList(treeStart[tree], treeStart[tree + 1]));
+	}
+
+	/**
+	 * Reports the weight of one tree.
+	 *
+	 * @param tree the tree
+	 * @return the sum of the weights of its edges
+	 * @throws IndexOutOfBoundsException if there is no such tree
+	 */
+	public long treeWeight(int tree) {
+		checkTree(tree);
+		return treeWeights[tree];
+	}
+
+	/**
+	 * Reports the tree of a vertex.
+	 *
+	 * @param vertex the vertex
+	 * @return its tree, or -1 if it was not in the graph
+	 */
+	public int treeOf(GraphNode vertex) {
+		int id = (vertex == null) ? -1 : vertex.getId();
+		return (id >= 0 && id < treeById.length) ? treeById[id] : -1;
+	}
+
+	/**
+	 * Checks a tree number.
+	 *
+	 * @param tree the tree
+	 */
+	private void checkTree(int tree) {
+		if(tree < 0 || tree >= treeWeights.length)
+			throw new IndexOutOfBoundsException("Tree: " + tree);
+	}
+}
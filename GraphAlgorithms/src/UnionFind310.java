@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * A disjoint-set forest over graph component ids, with union by rank and
+ * path compression, so a long run of finds and unions costs nearly
+ * constant time each.
+ *
+ * <p>An id joins the forest, as a set of its own, the first time it is
+ * passed to union or find. Ids index the arrays directly, which suits the
+ * dense ids handed out by the GraphNode factory; the arrays grow to fit the
+ * largest id seen.
+ */
+class UnionFind310 {
+
+	/**
+	 * The parent of each id; an id is its own parent at the root of a set,
+	 * and -1 while it is not in the forest.
+	 */
+	private int[] parent;
+
+	/**
+	 * An upper bound on the height of the tree under each root.
+	 */
+	private byte[] rank;
+
+	/**
+	 * The number of ids in the forest.
+	 */
+	private int size;
+
+	/**
+	 * The number of unions that merged two sets.
+	 */
+	private int unions;
+
+	/**
+	 * Constructs an empty forest.
+	 *
+	 * @param maxId the largest id expected, to size the arrays up front
+	 */
+	public UnionFind310(int maxId) {
+		parent = new int[Math.max(16, maxId + 1)];
+		rank = new byte[parent.length];
+		Arrays.fill(parent, -1);
+	}
+
+	/**
+	 * Reports whether an id is in the forest.
+	 *
+	 * @param id the id
+	 * @return true if the id has been passed to find or union
+	 */
+	public boolean contains(int id) {
+		return id >= 0 && id < parent.length && parent[id] >= 0;
+	}
+
+	/**
+	 * Finds the root of the set of an id, adding the id if it is new, and
+	 * points every id on the way straight at the root.
+	 *
+	 * @param id the id
+	 * @return the id at the root of its set
+	 * @throws IllegalArgumentException if id is negative
+	 */
+	public int find(int id) {
+		if(!contains(id))
+			return add(id);
+
+		int root = id;
+		while(parent[root] != root)
+			root = parent[root];
+		while(parent[id] != root) {
+			int next = parent[id];
+			parent[id] = root;
+			id = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Finds the root of the set of an id without changing the forest, so
+	 * several threads may call it as long as none changes the forest.
+	 *
+	 * @param id the id
+	 * @return the id at the root of its set, or -1 if the id is not in the forest
+	 */
+	public int root(int id) {
+		if(!contains(id))
+			return -1;
+		while(parent[id] != id)
+			id = parent[id];
+		return id;
+	}
+
+	/**
+	 * Merges the sets of two ids, hanging the shallower tree under the other.
+	 *
+	 * @param a one id
+	 * @param b the other id
+	 * @return true if they were in different sets
+	 * @throws IllegalArgumentException if either id is negative
+	 */
+	public boolean union(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if(ra == rb)
+			return false;
+		if(rank[ra] < rank[rb]) {
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		parent[rb] = ra;
+		if(rank[ra] == rank[rb])
+			rank[ra]++;
+		unions++;
+		return true;
+	}
+
+	/**
+	 * Reports whether two ids are in the same set.
+	 *
+	 * @param a one id
+	 * @param b the other id
+	 * @return true if both are in the forest and in the same set
+	 */
+	public boolean connected(int a, int b) {
+		return contains(a) && contains(b) && find(a) == find(b);
+	}
+
+	/**
+	 * Reports the number of ids in the forest.
+	 *
+	 * @return the number of ids
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Reports the number of unions that merged two sets, which is the number
+	 * of edges in a spanning forest built with them.
+	 *
+	 * @return the number of merging unions
+	 */
+	public int unions() {
+		return unions;
+	}
+
+	/**
+	 * Adds an id as a set of its own.
+	 *
+	 * @param id the id, not in the forest
+	 * @return the id
+	 */
+	private int add(int id) {
+		if(id < 0)
+			throw new IllegalArgumentException("Negative id: " + id);
+		if(id >= parent.length) {
+			int old = parent.length;
+			parent = Arrays.copyOf(parent, Math.max(id + 1, 2 * old));
+			rank = Arrays.copyOf(rank, parent.length);
+			Arrays.fill(parent, old, parent.length, -1);
+		}
+		parent[id] = id;
+		size++;
+		return id;
+	}
+
+	/**
+	 * Main method for testing.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		UnionFind310 sets = new UnionFind310(4);
+		if(sets.union(0, 1) && sets.union(2, 3) && !sets.union(1, 0) && sets.union(1, 3) &&
+			sets.connected(0, 2) && !sets.contains(4) && sets.size() == 4 && sets.unions() == 3) {
+			System.out.println("Yay 1");
+		}
+
+		//ids past the initial size grow the arrays; a long chain is flattened by one find
+		for(int i = 100; i < 1000; i++)
+			sets.union(i, i + 1);
+		int root = sets.find(100);
+		if(sets.connected(100, 1000) && !sets.connected(0, 100) && !sets.connected(5, 6) &&
+			!sets.contains(6) && sets.size() == 905 && sets.parent[1000] == root && sets.find(5) == 5 && sets.size() == 906) {
+			System.out.println("Yay 2");
+		}
+	}
+}
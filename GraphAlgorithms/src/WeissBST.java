@@ -1,14 +1,21 @@
 // Binary Search Tree class From your textbook (Weiss)
 
 import java.util.LinkedList; //only for the return of values(), do not use it anywhere else
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 /**
- * Implements an unbalanced binary search tree.
+ * Implements a binary search tree that is unbalanced by default and can
+ * optionally keep itself AVL-balanced.
  * Note that all "matching" is based on the compareTo method.
  * @param <T> Generic type for the nodes in the tree.
  * @author Mark Allen Weiss.
  */
-public class WeissBST<T extends Comparable<? super T>>
+public class WeissBST<T extends Comparable<? super T>> implements Iterable<T>
 {
 
 	//--------------------------------------------------------
@@ -32,6 +39,8 @@ public class WeissBST<T extends Comparable<? super T>>
 		{
 	   		element = theElement;
 			left = right = null;
+			height = 0;
+			size = 1;
 		}
 
 		/**
@@ -46,25 +55,62 @@ public class WeissBST<T extends Comparable<? super T>>
 		 * Right child.
 		 */
 		BinaryNode<T> right;
+		/**
+		 * Height of the subtree rooted at this node, 0 for a leaf.
+		 */
+		int height;
+		/**
+		 * Number of nodes in the subtree rooted at this node.
+		 */
+		int size;
 	}
 
-	//NOTE: you may not have any other instance variables, only this one below.
-	//if you make more instance variables your binary search tree class 
-	//will receive a 0, no matter how well it works
-	
+	/**
+	 * The largest height difference allowed between two siblings
+	 * when the tree is balanced.
+	 */
+	private static final int ALLOWED_IMBALANCE = 1;
+
 	/**
 	 * The tree root.
 	 */
 	private BinaryNode<T> root;
 
+	/**
+	 * Whether insertions and removals rebalance the tree (AVL).
+	 */
+	private final boolean balanced;
+
+	/**
+	 * Number of structural modifications, used by iterators to fail fast.
+	 */
+	private int modCount;
+
+	/**
+	 * Scratch stack of the nodes on the current root-to-leaf path, reused
+	 * by insert and remove so they run without recursion or allocation.
+	 */
+	private Object[] path = new Object[16];
 
 
 	/**
 	 * Construct the tree.
 	 */
 	public WeissBST( )
+	{
+		this( false );
+	}
+
+	/**
+	 * Construct the tree.
+	 * @param balanced true to keep the tree AVL-balanced so that every
+	 * operation is O(log n) no matter the insertion order, false for the
+	 * plain unbalanced tree.
+	 */
+	public WeissBST( boolean balanced )
 	{
 		root = null;
+		this.balanced = balanced;
 	}
 
 	/**
@@ -74,7 +120,74 @@ public class WeissBST<T extends Comparable<? super T>>
 	 */
 	public void insert( T x )
 	{
-		root = insert( x, root );
+		int depth = 0;
+		int c = 0;
+		BinaryNode<T> t = root;
+		while( t != null )
+		{
+			c = x.compareTo( t.element );
+			if( c == 0 )
+				throw new IllegalArgumentException( "Duplicate Item: " + x.toString( ) );  // Duplicate
+			pushPath( depth++, t );
+			t = c < 0 ? t.left : t.right;
+		}
+
+		attach( new BinaryNode<T>( x ), depth, c );
+	}
+
+	/**
+	 * Find the item with the given key, or insert a new one if there is
+	 * none, in a single walk down the tree.
+	 * @param <K> the type of the key.
+	 * @param key the key to search for.
+	 * @param keyOf extracts the key of an item; items are ordered by their keys.
+	 * @param factory creates the item to insert for a missing key.
+	 * @return the item that was found or inserted.
+	 */
+	public <K extends Comparable<? super K>> T findOrInsert( K key,
+		Function<? super T, ? extends K> keyOf, Function<? super K, ? extends T> factory )
+	{
+		int depth = 0;
+		int c = 0;
+		BinaryNode<T> t = root;
+		while( t != null )
+		{
+			c = key.compareTo( keyOf.apply( t.element ) );
+			if( c == 0 )
+			{
+				clearPath( depth );
+				return t.element;	// Match
+			}
+			pushPath( depth++, t );
+			t = c < 0 ? t.left : t.right;
+		}
+
+		T x = factory.apply( key );
+		attach( new BinaryNode<T>( x ), depth, c );
+		return x;
+	}
+
+	/**
+	 * Internal method to link a new leaf below the deepest node of the
+	 * recorded path and rebalance back up to the root.
+	 * @param node the new leaf.
+	 * @param depth the number of nodes on the path.
+	 * @param c the comparison of the new item with the deepest node.
+	 */
+	private void attach( BinaryNode<T> node, int depth, int c )
+	{
+		if( depth == 0 )
+			root = node;
+		else
+		{
+			BinaryNode<T> parent = pathAt( depth - 1 );
+			if( c < 0 )
+				parent.left = node;
+			else
+				parent.right = node;
+			root = rebalancePath( depth );
+		}
+		modCount++;
 	}
 
 	/**
@@ -83,7 +196,25 @@ public class WeissBST<T extends Comparable<? super T>>
 	 */
 	public void removeMin( )
 	{
-		root = removeMin( root );
+		if( root == null )
+			throw new IllegalArgumentException( "Min Item Not Found");
+
+		int depth = 0;
+		BinaryNode<T> t = root;
+		while( t.left != null )
+		{
+			pushPath( depth++, t );
+			t = t.left;
+		}
+
+		if( depth == 0 )
+			root = t.right;
+		else
+		{
+			pathAt( depth - 1 ).left = t.right;
+			root = rebalancePath( depth );
+		}
+		modCount++;
 	}
 
 	/**
@@ -95,6 +226,93 @@ public class WeissBST<T extends Comparable<? super T>>
 		return elementAt( findMin( root ) );
 	}
 
+	/**
+	 * Find the largest item in the tree.
+	 * @return largest item or null if empty.
+	 */
+	public T findMax( )
+	{
+		BinaryNode<T> t = root;
+		if( t != null )
+			while( t.right != null )
+				t = t.right;
+
+		return elementAt( t );
+	}
+
+	/**
+	 * Find the largest item less than or equal to x.
+	 * @param x the item to search for, it does not need to be in the tree.
+	 * @return the matching item or null if there is none.
+	 */
+	public T floor( T x )
+	{
+		return nearest( x, true, true );
+	}
+
+	/**
+	 * Find the largest item strictly less than x.
+	 * @param x the item to search for, it does not need to be in the tree.
+	 * @return the matching item or null if there is none.
+	 */
+	public T lower( T x )
+	{
+		return nearest( x, true, false );
+	}
+
+	/**
+	 * Find the smallest item greater than or equal to x.
+	 * @param x the item to search for, it does not need to be in the tree.
+	 * @return the matching item or null if there is none.
+	 */
+	public T ceiling( T x )
+	{
+		return nearest( x, false, true );
+	}
+
+	/**
+	 * Find the smallest item strictly greater than x.
+	 * @param x the item to search for, it does not need to be in the tree.
+	 * @return the matching item or null if there is none.
+	 */
+	public T higher( T x )
+	{
+		return nearest( x, false, false );
+	}
+
+	/**
+	 * Internal method to find the closest item to x on one side of it,
+	 * following a single root-to-leaf path.
+	 * @param x the item to search for.
+	 * @param below true to look for items smaller than x, false for larger.
+	 * @param inclusive true if an item equal to x is acceptable.
+	 * @return the closest matching item or null if there is none.
+	 */
+	private T nearest( T x, boolean below, boolean inclusive )
+	{
+		T best = null;
+		BinaryNode<T> t = root;
+		while( t != null )
+		{
+			int c = x.compareTo( t.element );
+			if( c == 0 && inclusive )
+				return t.element;	// Match
+			if( below ? c > 0 : c >= 0 )
+			{
+				if( below )
+					best = t.element;
+				t = t.right;
+			}
+			else
+			{
+				if( !below )
+					best = t.element;
+				t = t.left;
+			}
+		}
+		return best;
+	}
+
 
 	/**
 	 * Find an item in the tree.
@@ -106,12 +324,37 @@ public class WeissBST<T extends Comparable<? super T>>
 		return elementAt( find( x, root ) );
 	}
 
+	/**
+	 * Find an item in the tree by its key, without building a probe item.
+	 * @param <K> the type of the key.
+	 * @param key the key to search for.
+	 * @param keyOf extracts the key of an item; items are ordered by their keys.
+	 * @return the matching item or null if not found.
+	 */
+	public <K extends Comparable<? super K>> T find( K key, Function<? super T, ? extends K> keyOf )
+	{
+		BinaryNode<T> t = root;
+		while( t != null )
+		{
+			int c = key.compareTo( keyOf.apply( t.element ) );
+			if( c < 0 )
+				t = t.left;
+			else if( c > 0 )
+				t = t.right;
+			else
+				return t.element;	// Match
+		}
+		
+		return null;		 // Not found
+	}
+
 	/**
 	 * Make the tree logically empty.
 	 */
 	public void makeEmpty( )
 	{
 		root = null;
+		modCount++;
 	}
 
 	/**
@@ -134,44 +377,56 @@ public class WeissBST<T extends Comparable<? super T>>
 	}
 
 	/**
-	 * Internal method to insert into a subtree.
-	 * @param x the item to insert.
-	 * @param t the node that roots the tree.
-	 * @return the new root.
-	 * @throws Exception if x is already present.
+	 * Internal method to record t at position depth of the current path.
+	 * @param depth the depth of t below the root.
+	 * @param t the node on the path.
 	 */
-	private BinaryNode<T> insert( T x, BinaryNode<T> t )
+	private void pushPath( int depth, BinaryNode<T> t )
 	{
-		if( t == null )
-			t = new BinaryNode<T>( x );
-		else if( x.compareTo( t.element ) < 0 )
-			t.left = insert( x, t.left );
-		else if( x.compareTo( t.element ) > 0 )
-			t.right = insert( x, t.right );
-		else
-			throw new IllegalArgumentException( "Duplicate Item: " + x.toString( ) );  // Duplicate
-		return t;
+		if( depth == path.length )
+			path = Arrays.copyOf( path, depth * 2 );
+		path[ depth ] = t;
 	}
 
+	/**
+	 * Internal method to read a node of the current path.
+	 * @param depth the depth of the node below the root.
+	 * @return the node recorded at that depth.
+	 */
+	@SuppressWarnings("unchecked")
+	private BinaryNode<T> pathAt( int depth )
+	{
+		return (BinaryNode<T>) path[ depth ];
+	}
 
 	/**
-	 * Internal method to remove minimum item from a subtree.
-	 * @param t the node that roots the tree.
+	 * Internal method to walk the recorded path back up, restoring the
+	 * height, size and (when balanced) AVL property of every node and
+	 * re-linking each rebalanced subtree into its parent. The caller has
+	 * already updated the link below the deepest recorded node.
+	 * @param depth the number of nodes on the path.
 	 * @return the new root.
-	 * @throws Exception if t is empty.
 	 */
-	private BinaryNode<T> removeMin( BinaryNode<T> t )
+	private BinaryNode<T> rebalancePath( int depth )
 	{
-		if( t == null )
-			throw new IllegalArgumentException( "Min Item Not Found");
-		else if( t.left != null )
+		BinaryNode<T> child = null;
+		BinaryNode<T> oldChild = null;
+		for( int i = depth - 1; i >= 0; i-- )
 		{
-			t.left = removeMin( t.left );
-			return t;
+			BinaryNode<T> t = pathAt( i );
+			path[ i ] = null;
+			if( oldChild != null )
+			{
+				if( t.left == oldChild )
+					t.left = child;
+				else
+					t.right = child;
+			}
+			oldChild = t;
+			child = balance( t );
 		}
-		else
-			return t.right;
-	}	
+		return child;
+	}
 
 	/**
 	 * Internal method to find the smallest item in a subtree.
@@ -198,9 +453,10 @@ public class WeissBST<T extends Comparable<? super T>>
 	{
 		while( t != null )
 		{
-			if( x.compareTo( t.element ) < 0 )
+			int c = x.compareTo( t.element );
+			if( c < 0 )
 				t = t.left;
-			else if( x.compareTo( t.element ) > 0 )
+			else if( c > 0 )
 				t = t.right;
 			else
 				return t;	// Match
@@ -224,64 +480,289 @@ public class WeissBST<T extends Comparable<? super T>>
 	 */
 	public void remove( T x )
 	{
-		root = remove( x, root );
+		if( remove( x, Function.identity( ) ) == null )
+			throw new IllegalArgumentException( "Item Not Found: " + x.toString( ) );
 	}
 
 	/**
-	 * Internal method to remove from a subtree.
-	 * @param x the item to remove.
-	 * @param t the node that roots the tree.
-	 * @return the new root.
-	 * @throws Exception if x is not found.
+	 * Remove the item with the given key from the tree, if there is one,
+	 * in a single walk down the tree.
+	 * @param <K> the type of the key.
+	 * @param key the key of the item to remove.
+	 * @param keyOf extracts the key of an item; items are ordered by their keys.
+	 * @return the removed item or null if not found.
 	 */
-	private BinaryNode<T> remove( T x, BinaryNode<T> t )
+	public <K extends Comparable<? super K>> T remove( K key, Function<? super T, ? extends K> keyOf )
 	{
+		int depth = 0;
+		BinaryNode<T> t = root;
+		while( t != null )
+		{
+			int c = key.compareTo( keyOf.apply( t.element ) );
+			if( c == 0 )
+				break;
+			pushPath( depth++, t );
+			t = c < 0 ? t.left : t.right;
+		}
 		if( t == null )
-			throw new IllegalArgumentException( "Item Not Found: " + x.toString( ) );
-		if( x.compareTo( t.element ) < 0 )
-			t.left = remove( x, t.left );
-		else if( x.compareTo( t.element ) > 0 )
-			t.right = remove( x, t.right );
-		else if( t.left != null && t.right != null ) // Two children
 		{
-			t.element = findMax( t.left ).element;
-			t.left = removeMax( t.left );
+			clearPath( depth );
+			return null;
+		}
+
+		T removed = t.element;
+		if( t.left != null && t.right != null ) // Two children
+		{
+			// predecessor replacement: t takes the largest item of its left subtree
+			pushPath( depth++, t );
+			BinaryNode<T> max = t.left;
+			while( max.right != null )
+			{
+				pushPath( depth++, max );
+				max = max.right;
+			}
+			t.element = max.element;
+
+			BinaryNode<T> parent = pathAt( depth - 1 );
+			if( parent == t )
+				parent.left = max.left;
+			else
+				parent.right = max.left;
+			root = rebalancePath( depth );
 		}
 		else
-			t = ( t.left != null ) ? t.left : t.right;
+		{
+			BinaryNode<T> child = ( t.left != null ) ? t.left : t.right;
+			if( depth == 0 )
+				root = child;
+			else
+			{
+				BinaryNode<T> parent = pathAt( depth - 1 );
+				if( parent.left == t )
+					parent.left = child;
+				else
+					parent.right = child;
+				root = rebalancePath( depth );
+			}
+		}
+		modCount++;
+		return removed;
+	}
+
+	/**
+	 * Internal method to drop the references held by an abandoned path.
+	 * @param depth the number of nodes on the path.
+	 */
+	private void clearPath( int depth )
+	{
+		for( int i = 0; i < depth; i++ )
+			path[ i ] = null;
+	}
+
+
+	//--------------------------------------------------------
+	// BULK LOADING
+	//--------------------------------------------------------
+
+	/**
+	 * Replace the contents of the tree with the first n items of a sorted
+	 * array, building a perfectly height-balanced tree in O(n).
+	 * @param items the items, in strictly ascending order.
+	 * @param n the number of items to use.
+	 * @throws IllegalArgumentException if the items are not strictly ascending.
+	 */
+	public void build( T[] items, int n )
+	{
+		for( int i = 1; i < n; i++ )
+			if( items[ i - 1 ].compareTo( items[ i ] ) >= 0 )
+				throw new IllegalArgumentException( "Items Not Sorted: " + items[ i ].toString( ) );
+
+		root = build( items, 0, n - 1 );
+		modCount++;
+	}
+
+	/**
+	 * Internal method to build a balanced subtree from a sorted range.
+	 * The recursion depth is only log n, since each call halves the range.
+	 * @param items the sorted items.
+	 * @param lo the first index of the range.
+	 * @param hi the last index of the range.
+	 * @return the root of the subtree, or null for an empty range.
+	 */
+	private BinaryNode<T> build( T[] items, int lo, int hi )
+	{
+		if( lo > hi )
+			return null;
+
+		int mid = ( lo + hi ) >>> 1;
+		BinaryNode<T> t = new BinaryNode<T>( items[ mid ] );
+		t.left = build( items, lo, mid - 1 );
+		t.right = build( items, mid + 1, hi );
+		update( t );
 		return t;
 	}
 
 	/**
-	 * Internal method to remove maximum item from a subtree.
+	 * Prepare the first n items of an array for build(): drop nulls, sort
+	 * unless the items are already in ascending order, and drop duplicates
+	 * (keeping the first of each run). Works in place.
+	 * O(n) for sorted input, O(n log n) otherwise.
+	 * @param <T> the type of the items.
+	 * @param items the items.
+	 * @param n the number of items to consider.
+	 * @return the number of distinct items now at the front of the array.
+	 */
+	public static <T extends Comparable<? super T>> int sortDistinct( T[] items, int n )
+	{
+		int count = 0;
+		boolean sorted = true;
+		for( int i = 0; i < n; i++ )
+		{
+			if( items[ i ] == null )
+				continue;
+			if( count > 0 && sorted && items[ count - 1 ].compareTo( items[ i ] ) > 0 )
+				sorted = false;
+			items[ count++ ] = items[ i ];
+		}
+		Arrays.fill( items, count, n, null );
+
+		if( !sorted )
+			Arrays.sort( items, 0, count );
+
+		int distinct = 0;
+		for( int i = 0; i < count; i++ )
+			if( distinct == 0 || items[ distinct - 1 ].compareTo( items[ i ] ) != 0 )
+				items[ distinct++ ] = items[ i ];
+		Arrays.fill( items, distinct, count, null );
+		return distinct;
+	}
+
+
+	//--------------------------------------------------------
+	// AVL BALANCING (From Weiss AvlTree)
+	//--------------------------------------------------------
+
+	/**
+	 * Return the height of node t, or -1, if null.
+	 * @param t the node.
+	 * @return the height of t.
+	 */
+	private int height( BinaryNode<T> t )
+	{
+		return t == null ? -1 : t.height;
+	}
+
+	/**
+	 * Return the number of nodes under t, or 0, if null.
+	 * @param t the node.
+	 * @return the size of the subtree rooted at t.
+	 */
+	private int size( BinaryNode<T> t )
+	{
+		return t == null ? 0 : t.size;
+	}
+
+	/**
+	 * Internal method to recompute the height and size fields of t
+	 * from its children.
+	 * @param t the node to update.
+	 */
+	private void update( BinaryNode<T> t )
+	{
+		t.height = Math.max( height( t.left ), height( t.right ) ) + 1;
+		t.size = size( t.left ) + size( t.right ) + 1;
+	}
+
+	/**
+	 * Internal method to restore the height and size of t and, when the tree is
+	 * balanced, the AVL property at t. Assumes both subtrees of t are
+	 * already balanced.
 	 * @param t the node that roots the tree.
 	 * @return the new root.
-	 * @throws Exception if t is empty.
 	 */
-	private BinaryNode<T> removeMax( BinaryNode<T> t )
+	private BinaryNode<T> balance( BinaryNode<T> t )
 	{
 		if( t == null )
-			throw new IllegalArgumentException( "Max Item Not Found");
-		else if( t.right != null )
-		{
-			t.right = removeMax( t.right );
 			return t;
+
+		if( balanced )
+		{
+			if( height( t.left ) - height( t.right ) > ALLOWED_IMBALANCE )
+			{
+				if( height( t.left.left ) >= height( t.left.right ) )
+					t = rotateWithLeftChild( t );
+				else
+					t = doubleWithLeftChild( t );
+			}
+			else if( height( t.right ) - height( t.left ) > ALLOWED_IMBALANCE )
+			{
+				if( height( t.right.right ) >= height( t.right.left ) )
+					t = rotateWithRightChild( t );
+				else
+					t = doubleWithRightChild( t );
+			}
 		}
-		else
-			return t.left;
-	}	
+
+		update( t );
+		return t;
+	}
+
 	/**
-	 * Internal method to find the largest item in a subtree.
-	 * @param t the node that roots the tree.
-	 * @return node containing the largest item.
+	 * Rotate binary tree node with left child.
+	 * For AVL trees, this is a single rotation for case 1.
+	 * @param k2 the node to rotate.
+	 * @return the new root.
 	 */
-	private BinaryNode<T> findMax( BinaryNode<T> t )
+	private BinaryNode<T> rotateWithLeftChild( BinaryNode<T> k2 )
 	{
-		if( t != null )
-			while( t.right != null )
-				t = t.right;
+		BinaryNode<T> k1 = k2.left;
+		k2.left = k1.right;
+		k1.right = k2;
+		update( k2 );
+		update( k1 );
+		return k1;
+	}
 
-		return t;
+	/**
+	 * Rotate binary tree node with right child.
+	 * For AVL trees, this is a single rotation for case 4.
+	 * @param k1 the node to rotate.
+	 * @return the new root.
+	 */
+	private BinaryNode<T> rotateWithRightChild( BinaryNode<T> k1 )
+	{
+		BinaryNode<T> k2 = k1.right;
+		k1.right = k2.left;
+		k2.left = k1;
+		update( k1 );
+		update( k2 );
+		return k2;
+	}
+
+	/**
+	 * Double rotate binary tree node: first left child
+	 * with its right child; then node k3 with new left child.
+	 * For AVL trees, this is a double rotation for case 2.
+	 * @param k3 the node to rotate.
+	 * @return the new root.
+	 */
+	private BinaryNode<T> doubleWithLeftChild( BinaryNode<T> k3 )
+	{
+		k3.left = rotateWithRightChild( k3.left );
+		return rotateWithLeftChild( k3 );
+	}
+
+	/**
+	 * Double rotate binary tree node: first right child
+	 * with its left child; then node k1 with new right child.
+	 * For AVL trees, this is a double rotation for case 3.
+	 * @param k1 the node to rotate.
+	 * @return the new root.
+	 */
+	private BinaryNode<T> doubleWithRightChild( BinaryNode<T> k1 )
+	{
+		k1.right = rotateWithLeftChild( k1.right );
+		return rotateWithRightChild( k1 );
 	}
 
 
@@ -295,12 +776,56 @@ public class WeissBST<T extends Comparable<? super T>>
 
 	/**
 	 * Reports the number of nodes in tree.
+	 * O(1): every node keeps the size of its subtree.
 	 * @return Size of the tree, 0 for null trees
 	 */
 	public int size(){
-		LinkedList<T> list = new LinkedList<>();
-		depthFirstTraversal(root, (byte)0, list);
-		return list.size();
+		return size(root);
+	}
+
+	/**
+	 * Reports the number of items in the tree that are smaller than x.
+	 * If x is in the tree this is its zero-based position in sorted order.
+	 * @param x the item to rank, it does not need to be in the tree.
+	 * @return the number of items smaller than x.
+	 */
+	public int rank(T x){
+		int r = 0;
+		BinaryNode<T> t = root;
+		while(t != null){
+			int c = x.compareTo(t.element);
+			if(c < 0)
+				t = t.left;
+			else if(c > 0){
+				r += size(t.left) + 1;
+				t = t.right;
+			}
+			else
+				return r + size(t.left);
+		}
+		return r;
+	}
+
+	/**
+	 * Finds the k-th smallest item in the tree.
+	 * @param k the zero-based position in sorted order.
+	 * @return the k-th smallest item or null if k is out of range.
+	 */
+	public T select(int k){
+		if(k < 0 || k >= size())
+			return null;
+		BinaryNode<T> t = root;
+		while(true){
+			int leftSize = size(t.left);
+			if(k < leftSize)
+				t = t.left;
+			else if(k > leftSize){
+				k -= leftSize + 1;
+				t = t.right;
+			}
+			else
+				return t.element;
+		}
 	}
 	
 	/**
@@ -308,13 +833,10 @@ public class WeissBST<T extends Comparable<? super T>>
 	 * @return Returns a string representation of the tree.
 	 */
 	public String toString(){
-		LinkedList<T> list = new LinkedList<>();
-		depthFirstTraversal(root, (byte)1, list);
-
-		String result = "";
-		for(T a: list)
-			result += a + " ";
-		return result;
+		StringBuilder result = new StringBuilder();
+		for(T a: this)
+			result.append(a).append(' ');
+		return result.toString();
   	}
   	
 	/**
@@ -327,41 +849,233 @@ public class WeissBST<T extends Comparable<? super T>>
 		return list;
 	}
 	
+	/**
+	 * Lazily follows an IN-ORDER traversal of the tree.
+	 * Only the path to the next item is kept, so nothing is copied and
+	 * loops that stop early only pay for the items they visit.
+	 * @return Returns an iterator over the values in sorted order.
+	 */
+	public Iterator<T> iterator(){
+		return new RangeIterator(null, true, null, true, false);
+	}
+
+	/**
+	 * Lazily follows an IN-ORDER traversal of the items between two bounds.
+	 * Finding the first item is O(log n), every later step is amortized O(1).
+	 * @param lo the lower bound, or null for no lower bound.
+	 * @param loInclusive true if an item equal to lo is included.
+	 * @param hi the upper bound, or null for no upper bound.
+	 * @param hiInclusive true if an item equal to hi is included.
+	 * @param descending true to return the items from largest to smallest.
+	 * @return Returns an iterator over the values in the range.
+	 */
+	public Iterator<T> iterator(T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending){
+		return new RangeIterator(lo, loInclusive, hi, hiInclusive, descending);
+	}
+
+	/**
+	 * Fail-fast IN-ORDER (or reverse) iterator over a range, backed by an
+	 * explicit stack of the ancestors still to be visited.
+	 */
+	private class RangeIterator implements Iterator<T>
+	{
+		/**
+		 * Nodes whose element and far subtree have not been returned yet.
+		 */
+		private final ArrayDeque<BinaryNode<T>> stack = new ArrayDeque<>();
+
+		/**
+		 * The bound the iteration starts from, null if unbounded.
+		 */
+		private final T from;
+
+		/**
+		 * Whether an item equal to from is included.
+		 */
+		private final boolean fromInclusive;
+
+		/**
+		 * The bound the iteration stops at, null if unbounded.
+		 */
+		private final T to;
+
+		/**
+		 * Whether an item equal to to is included.
+		 */
+		private final boolean toInclusive;
+
+		/**
+		 * Whether the iteration goes from largest to smallest.
+		 */
+		private final boolean descending;
+
+		/**
+		 * The last element returned by next(), null if none or removed.
+		 */
+		private T last;
+
+		/**
+		 * The modification count the iterator is in sync with.
+		 */
+		private int expectedModCount = modCount;
+
+		/**
+		 * Starts the iteration at the first item in range.
+		 * @param lo the lower bound, or null for no lower bound.
+		 * @param loInclusive true if an item equal to lo is included.
+		 * @param hi the upper bound, or null for no upper bound.
+		 * @param hiInclusive true if an item equal to hi is included.
+		 * @param descending true to go from largest to smallest.
+		 */
+		RangeIterator(T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending)
+		{
+			this.descending = descending;
+			this.from = descending ? hi : lo;
+			this.fromInclusive = descending ? hiInclusive : loInclusive;
+			this.to = descending ? lo : hi;
+			this.toInclusive = descending ? loInclusive : hiInclusive;
+			seek(from, fromInclusive);
+		}
+
+		/**
+		 * Rebuilds the stack so that its top is the first item at or
+		 * after x in iteration order.
+		 * @param x the item to start from, or null to start at the end of the tree.
+		 * @param inclusive true if an item equal to x may be returned next.
+		 */
+		private void seek(T x, boolean inclusive)
+		{
+			stack.clear();
+			BinaryNode<T> t = root;
+			while(t != null)
+			{
+				int c = (x == null) ? (descending ? 1 : -1) : x.compareTo(t.element);
+				if(descending)
+					c = -c;
+				if(c < 0 || (c == 0 && inclusive))
+				{
+					stack.push(t);
+					if(c == 0)
+						break;
+					t = descending ? t.right : t.left;
+				}
+				else
+					t = descending ? t.left : t.right;
+			}
+		}
+
+		/**
+		 * Pushes t and all of its descendants on the near side.
+		 * @param t the node to start from.
+		 */
+		private void pushNear(BinaryNode<T> t)
+		{
+			while(t != null)
+			{
+				stack.push(t);
+				t = descending ? t.right : t.left;
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean hasNext()
+		{
+			if(stack.isEmpty())
+				return false;
+			if(to == null)
+				return true;
+			int c = stack.peek().element.compareTo(to);
+			if(descending)
+				c = -c;
+			return c < 0 || (c == 0 && toInclusive);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public T next()
+		{
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if(!hasNext())
+				throw new NoSuchElementException();
+			BinaryNode<T> t = stack.pop();
+			pushNear(descending ? t.left : t.right);
+			last = t.element;
+			return last;
+		}
+
+		/**
+		 * Removes the last returned item from the tree and resumes from
+		 * its successor, since rebalancing may have moved the stacked nodes.
+		 */
+		public void remove()
+		{
+			if(last == null)
+				throw new IllegalStateException();
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			WeissBST.this.remove(last);
+			expectedModCount = modCount;
+			seek(last, false);
+			last = null;
+		}
+	}
+	
 	/**
 	* Edits the list given to travers the tree in either post, pre, or in order.
+	* Uses an explicit stack so that arbitrarily deep trees do not overflow the call stack.
 	* @param node The node to start traversing from.
 	* @param i Is represents the three possible depth-first traversals, 0 for pre, 1 for in, and 2 for post order.
 	* @param list The list that contains the traversal.
 	*/
 	private void depthFirstTraversal(BinaryNode<T> node, byte i, LinkedList<T> list)
 	{
+		if(node == null)
+			return;
+		ArrayDeque<BinaryNode<T>> stack = new ArrayDeque<>();
+
 		// Depending on the parameter which order to use.
 		switch(i)
 		{
 			case 0:
-				if(node == null)
-            		return;
-        		list.add(node.element);
-        		depthFirstTraversal(node.left, (byte) 0, list);
-        		depthFirstTraversal(node.right, (byte) 0, list);
+				stack.push(node);
+				while(!stack.isEmpty()){
+					BinaryNode<T> t = stack.pop();
+					list.add(t.element);
+					if(t.right != null)
+						stack.push(t.right);
+					if(t.left != null)
+						stack.push(t.left);
+				}
 				break;
 			case 1:
-				if(node == null)
-            		return;
-        		depthFirstTraversal(node.left, (byte) 1, list);
-				list.add(node.element);
-        		depthFirstTraversal(node.right, (byte) 1, list);
+				BinaryNode<T> t = node;
+				while(t != null || !stack.isEmpty()){
+					for( ; t != null; t = t.left)
+						stack.push(t);
+					t = stack.pop();
+					list.add(t.element);
+					t = t.right;
+				}
 				break;
 			case 2:
-				if(node == null)
-            		return;
-        		depthFirstTraversal(node.left, (byte) 2, list);
-        		depthFirstTraversal(node.right, (byte) 2, list);
-				list.add(node.element);
+				// node-right-left pre-order, reversed, is left-right-node
+				stack.push(node);
+				while(!stack.isEmpty()){
+					BinaryNode<T> u = stack.pop();
+					list.addFirst(u.element);
+					if(u.left != null)
+						stack.push(u.left);
+					if(u.right != null)
+						stack.push(u.right);
+				}
 				break;
 		}
 	}
- 
+
 
 
 	//--------------------------------------------------------
@@ -423,6 +1137,73 @@ public class WeissBST<T extends Comparable<? super T>>
 			System.out.println("Yay 4");		
 		}
 		//System.out.print(t);
+
+		//balanced tree: sorted insertion must not degenerate into a list
+		WeissBST<Integer> b = new WeissBST<Integer>( true );
+		for( int i = 0; i < 1023; i++ )
+			b.insert( i );
+		for( int i = 0; i < 1023; i += 2 )
+			b.remove( i );
+		b.removeMin( );
+		if (b.size() == 510 && b.height( b.root ) <= 13 && b.findMin() == 3){
+			System.out.println("Yay 5");
+		}
+
+		//order statistics
+		if (b.select(0) == 3 && b.select(509) == 1021 && b.select(510) == null &&
+			b.rank(3) == 0 && b.rank(4) == 1 && b.rank(1021) == 509 && b.rank(5000) == 510 &&
+			t.select(1) == 310 && t.rank(471) == 3){
+			System.out.println("Yay 6");
+		}
+
+		//lazy in-order iteration with removal
+		Iterator<Integer> it = b.iterator();
+		int expected = 3;
+		boolean ordered = true;
+		while(it.hasNext()){
+			int v = it.next();
+			ordered = ordered && v == expected;
+			expected += 2;
+			if(v % 4 == 1)
+				it.remove();
+		}
+		boolean failFast = false;
+		try{
+			for(Integer v : b)
+				b.insert(-v);
+		}catch(ConcurrentModificationException ex){
+			failFast = true;
+		}
+		if (ordered && failFast && b.size() == 256 && b.findMin() == -3 && b.find(5) == null){
+			System.out.println("Yay 7");
+		}
+
+		//no recursion: a deep degenerate tree on the default stack
+		WeissBST<Integer> chain = new WeissBST<Integer>( );
+		for( int i = 0; i < 20000; i++ )
+			chain.insert( i );
+		chain.remove( 10000 );
+		chain.removeMin( );
+		LinkedList<Integer> post = new LinkedList<>();
+		chain.depthFirstTraversal( chain.root, (byte)2, post );
+		if (chain.size() == 19998 && chain.find(19999) == 19999 && chain.values().size() == 19998 &&
+			post.getFirst() == 19999 && post.getLast() == 1){
+			System.out.println("Yay 8");
+		}
+
+		//bulk loading: sorted input stays O(n), unsorted input is sorted first
+		Integer[] items = new Integer[1023];
+		for( int i = 0; i < items.length; i++ )
+			items[ i ] = ( i * 7 ) % 1023;
+		items[ 5 ] = items[ 4 ];
+		items[ 6 ] = null;
+		int n = sortDistinct( items, items.length );
+		WeissBST<Integer> bulk = new WeissBST<Integer>( );
+		bulk.build( items, n );
+		if (n == 1021 && bulk.size() == 1021 && bulk.height( bulk.root ) == 9 &&
+			bulk.select( 0 ) == 0 && bulk.rank( 1022 ) == 1020){
+			System.out.println("Yay 9");
+		}
 	
 	}
 	
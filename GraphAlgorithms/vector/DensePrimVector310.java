@@ -0,0 +1,62 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The row pass of DensePrim310 on the jdk.incubator.vector API. Each lane
+ * lowers its distances and keeps its own smallest distance and where it
+ * was seen, so the update and the min-scan share one pass; the lanes are
+ * reduced once at the end.
+ *
+ * <p>This file needs the incubator module to compile and to run:
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -cp .:../lib/310libs.jar -d . ../vector/DensePrimVector310.java
+ * java --add-modules jdk.incubator.vector -cp .:../lib/310libs.jar DensePrim310
+ * </pre>
+ * (from GraphAlgorithms/src, after the usual javac there). DensePrim310
+ * falls back to a scalar loop whenever this class or the module is missing.
+ */
+class DensePrimVector310 implements DensePrim310.Kernel {
+
+	/**
+	 * The widest int vectors the platform runs well.
+	 */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int relax(int[] matrix, int row, int[] dist, int[] done, int n) {
+		int lanes = SPECIES.length();
+		IntVector best = IntVector.broadcast(SPECIES, DensePrim310.NONE);
+		IntVector bestAt = IntVector.zero(SPECIES);
+		IntVector index = IntVector.zero(SPECIES).addIndex(1);
+		IntVector step = IntVector.broadcast(SPECIES, lanes);
+
+		int w = 0;
+		for(int bound = SPECIES.loopBound(n); w < bound; w += lanes) {
+			//a done vertex reads NONE, which never lowers anything
+			IntVector offer = IntVector.fromArray(SPECIES, matrix, row + w).or(IntVector.fromArray(SPECIES, done, w));
+			IntVector d = IntVector.fromArray(SPECIES, dist, w).min(offer);
+			d.intoArray(dist, w);
+			VectorMask<Integer> lower = d.lt(best);
+			best = best.blend(d, lower);
+			bestAt = bestAt.blend(index, lower);
+			index = index.add(step);
+		}
+
+		//distances below NONE are edge ranks, so at most one lane holds the minimum
+		int min = best.reduceLanes(VectorOperators.MIN);
+		int at = (min == DensePrim310.NONE) ? -1 : bestAt.lane(best.eq(min).firstTrue());
+		for(; w < n; w++) {
+			int d = Math.min(dist[w], matrix[row + w] | done[w]);
+			dist[w] = d;
+			if(d < min) {
+				min = d;
+				at = w;
+			}
+		}
+		return at;
+	}
+}